@@ -0,0 +1,35 @@
+package org.bytestash.benchmarking;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of the benchmarks jar. Runs the selected benchmarks once per thread count of the
+ * {@code bytestash.threads} property (1,4,8 by default) with the GC profiler, any JMH command line option
+ * can be given as well:
+ * <pre>
+ * java -Dbytestash.threads=1,16 -jar target/byte-stash-benchmarks.jar CacheNodeBenchmark -p distribution=ZIPF
+ * </pre>
+ */
+public class BenchmarkSuite {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (String threads : System.getProperty("bytestash.threads", "1,4,8").split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                                                    .parent(commandLine)
+                                                    .threads(Integer.parseInt(threads.trim()))
+                                                    .addProfiler(GCProfiler.class);
+            if (commandLine.getIncludes().isEmpty()) {
+                options.include(CacheNodeBenchmark.class.getSimpleName())
+                       .include(ByteStashManagerBenchmark.class.getSimpleName());
+            }
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.bytestash.benchmarking;
+
+import org.bytestash.creator.ByteStashFactory;
+import org.bytestash.creator.ByteStashManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manager operations with plain string keys, including key encoding and routing to the node. The capacity is
+ * split over the nodes and the key space is twice the capacity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ByteStashManagerBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int nodes;
+
+    @Param({"16384", "262144"})
+    public int capacity;
+
+    @Param({"UNIFORM", "ZIPF", "SCAN"})
+    public KeyDistribution distribution;
+
+    private ByteStashManager<String> manager;
+
+    private String[] keys;
+
+    private int[] sequence;
+
+    @Setup
+    public void setup() {
+        int keySpace = capacity * 2;
+        manager = ByteStashFactory.<String>builder()
+                          .withNodes(nodes)
+                          .withCapacity((long) capacity)
+                          .withTimeToLive(300)
+                          .build()
+                          .create();
+        keys = new String[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            keys[i] = "key-" + i;
+        }
+        sequence = distribution.sequence(keySpace, CacheNodeBenchmark.SEQUENCE_LENGTH, 42);
+        for (int i = 0; i < capacity; i++) {
+            manager.put(keys[sequence[i]], "value");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public String get(CacheNodeBenchmark.Cursor cursor) {
+        return manager.get(keys[sequence[cursor.next()]], String.class);
+    }
+
+    @Benchmark
+    public void put(CacheNodeBenchmark.Cursor cursor) {
+        manager.put(keys[sequence[cursor.next()]], "value");
+    }
+
+    @Benchmark
+    public String removeAndPut(CacheNodeBenchmark.Cursor cursor) {
+        String key = keys[sequence[cursor.next()]];
+        String value = manager.remove(key, String.class);
+        manager.put(key, "value");
+        return value;
+    }
+}
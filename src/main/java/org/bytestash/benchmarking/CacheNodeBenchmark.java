@@ -0,0 +1,90 @@
+package org.bytestash.benchmarking;
+
+import org.bytestash.cache.CacheNode;
+import org.bytestash.key.CacheKey;
+import org.bytestash.key.KeyCodecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single node operations on pre-encoded keys over a key space twice the capacity, so reads miss as well and
+ * puts keep evicting. The thread count is given with {@code -t} or swept by {@link BenchmarkSuite}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheNodeBenchmark {
+
+    static final int SEQUENCE_LENGTH = 1 << 20;
+
+    @Param({"16384", "262144"})
+    public int capacity;
+
+    @Param({"UNIFORM", "ZIPF", "SCAN"})
+    public KeyDistribution distribution;
+
+    private CacheNode<String> cacheNode;
+
+    private CacheKey[] keys;
+
+    private int[] sequence;
+
+    @Setup
+    public void setup() throws IOException {
+        int keySpace = capacity * 2;
+        cacheNode = new CacheNode<>(capacity, 0.2f, 0.3f, 300, 0);
+        KeyCodecs keyCodecs = KeyCodecs.defaults();
+        keys = new CacheKey[keySpace];
+        for (int i = 0; i < keySpace; i++) {
+            keys[i] = keyCodecs.encode("key-" + i, String.class);
+        }
+        sequence = distribution.sequence(keySpace, SEQUENCE_LENGTH, 42);
+        for (int i = 0; i < capacity; i++) {
+            cacheNode.put(keys[sequence[i]], "value");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheNode.shutdown();
+    }
+
+    /**
+     * Position of a thread in the key sequence, threads start at different offsets.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next = ThreadLocalRandom.current().nextInt(SEQUENCE_LENGTH);
+
+        int next() {
+            return next++ & (SEQUENCE_LENGTH - 1);
+        }
+    }
+
+    @Benchmark
+    public String get(Cursor cursor) {
+        return cacheNode.get(keys[sequence[cursor.next()]]);
+    }
+
+    @Benchmark
+    public void put(Cursor cursor) {
+        cacheNode.put(keys[sequence[cursor.next()]], "value");
+    }
+
+    /**
+     * Removes the key and writes it back, so the node does not run empty.
+     */
+    @Benchmark
+    public String removeAndPut(Cursor cursor) {
+        CacheKey key = keys[sequence[cursor.next()]];
+        String value = cacheNode.remove(key);
+        cacheNode.put(key, "value");
+        return value;
+    }
+}
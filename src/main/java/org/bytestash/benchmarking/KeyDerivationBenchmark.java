@@ -0,0 +1,71 @@
+package org.bytestash.benchmarking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bytestash.key.CacheKey;
+import org.bytestash.key.KeyCodecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old Jackson + SHA-256 + hex key path of ByteStashManager against the KeyCodec path,
+ * both including the node routing step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyDerivationBenchmark {
+
+    private static final int NODES = 5;
+
+    public record UserKey(long tenant, String name) {
+    }
+
+    @Param({"STRING", "LONG", "RECORD"})
+    public String keyType;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final KeyCodecs keyCodecs = KeyCodecs.defaults();
+
+    private Object key;
+
+    @Setup
+    public void setup() {
+        switch (keyType) {
+            case "STRING" -> key = "user:1234567:profile";
+            case "LONG" -> key = 1234567L;
+            default -> key = new UserKey(42L, "profile");
+        }
+    }
+
+    @Benchmark
+    public int legacyKeyPath() throws IOException, NoSuchAlgorithmException {
+        byte[] objectBytes = objectMapper.writeValueAsBytes(key);
+        String className = String.class.getName();
+        byte[] combinedBytes = new byte[className.length() + objectBytes.length];
+        System.arraycopy(className.getBytes(), 0, combinedBytes, 0, className.length());
+        System.arraycopy(objectBytes, 0, combinedBytes, className.length(), objectBytes.length);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hashBytes = digest.digest(combinedBytes);
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hashBytes) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) hexString.append('0');
+            hexString.append(hex);
+        }
+        return Math.abs(hexString.toString().hashCode()) % NODES;
+    }
+
+    @Benchmark
+    public int keyCodecPath() throws IOException {
+        CacheKey cacheKey = keyCodecs.encode(key, String.class);
+        return Math.floorMod(cacheKey.hashCode(), NODES);
+    }
+}
@@ -0,0 +1,86 @@
+package org.bytestash.benchmarking;
+
+import java.util.SplittableRandom;
+
+/**
+ * Order in which the benchmarks request keys. The sequences are generated in the setup so drawing a key costs
+ * the benchmarks an array read only.
+ */
+public enum KeyDistribution {
+    /**
+     * Every key is equally likely.
+     */
+    UNIFORM,
+    /**
+     * Few keys take most of the requests, with the 0.99 skew common to caching workloads.
+     */
+    ZIPF,
+    /**
+     * Walks the keys in a loop, the worst case for recency based eviction once there are more keys than capacity.
+     */
+    SCAN;
+
+    private static final double ZIPF_SKEW = 0.99;
+
+    public int[] sequence(int keySpace, int length, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] sequence = new int[length];
+        switch (this) {
+            case UNIFORM -> {
+                for (int i = 0; i < length; i++) {
+                    sequence[i] = random.nextInt(keySpace);
+                }
+            }
+            case ZIPF -> {
+                double[] cumulative = new double[keySpace];
+                double sum = 0;
+                for (int i = 0; i < keySpace; i++) {
+                    sum += 1.0 / Math.pow(i + 1, ZIPF_SKEW);
+                    cumulative[i] = sum;
+                }
+                int[] permutation = permutation(keySpace, random);
+                for (int i = 0; i < length; i++) {
+                    sequence[i] = permutation[rank(cumulative, random.nextDouble() * sum)];
+                }
+            }
+            case SCAN -> {
+                int start = random.nextInt(keySpace);
+                for (int i = 0; i < length; i++) {
+                    sequence[i] = (start + i) % keySpace;
+                }
+            }
+        }
+        return sequence;
+    }
+
+    private static int rank(double[] cumulative, double value) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Spreads the popular ranks over the key space, otherwise they would all be neighbouring keys.
+     */
+    private static int[] permutation(int size, SplittableRandom random) {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+}
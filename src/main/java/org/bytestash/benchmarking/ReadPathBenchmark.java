@@ -0,0 +1,66 @@
+package org.bytestash.benchmarking;
+
+import org.bytestash.cache.CacheNode;
+import org.bytestash.key.CacheKey;
+import org.bytestash.key.KeyCodecs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady state hits on one node, run with {@code -prof gc} to check the read path does not allocate:
+ * gc.alloc.rate.norm of nodeGet should stay at zero bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadPathBenchmark {
+
+    private static final int KEYS = 1 << 12;
+
+    private CacheNode<String> cacheNode;
+
+    private CacheKey[] keys;
+
+    private String[] values;
+
+    @Setup
+    public void setup() throws IOException {
+        cacheNode = new CacheNode<>(KEYS * 2L, 0.2f, 0.3f, 300, 0);
+        KeyCodecs keyCodecs = KeyCodecs.defaults();
+        keys = new CacheKey[KEYS];
+        values = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = keyCodecs.encode("key-" + i, String.class);
+            values[i] = "value-" + i;
+            cacheNode.put(keys[i], values[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheNode.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nodeGet(Cursor cursor) {
+        return cacheNode.get(keys[cursor.next++ & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void nodePut(Cursor cursor) {
+        int i = cursor.next++ & (KEYS - 1);
+        cacheNode.put(keys[i], values[i]);
+    }
+}
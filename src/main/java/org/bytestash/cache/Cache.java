@@ -1,7 +1,10 @@
 package org.bytestash.cache;
 
+import java.time.Duration;
+
 public interface Cache<S, T> {
     T get(S key);
     void put(S key, T value);
+    void put(S key, T value, Duration ttl);
     T remove(S key);
 }
@@ -2,32 +2,92 @@ package org.bytestash.cache;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.bytestash.storage.SlabAllocator;
 
-import java.sql.Timestamp;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
+/**
+ * Entry of a CacheNode, it is also the list node of the region it is linked in. The links are guarded by
+ * the lock of the owning node.
+ */
 class CacheItem<T> {
+    private static final VarHandle REFRESHING;
+
+    static {
+        try {
+            REFRESHING = MethodHandles.lookup().findVarHandle(CacheItem.class, "refreshing", boolean.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
+    private final Object key;
+
     @Setter
     @Getter
-    private T value;
-    private boolean isActive;
+    private volatile T value;
+    private volatile boolean isActive;
 
     @Getter
     private final int nodeNumber;
 
     @Setter
     @Getter
-    private Timestamp timestamp;
+    private volatile CacheRegionType region;
 
-    @Setter
-    @Getter
-    private CacheRegionType region;
+    CacheItem<T> prev;
+
+    CacheItem<T> next;
+
+    boolean removed;
+
+    /**
+     * Region the item was demoted from into COLD.
+     */
+    CacheRegionType demotedFrom;
+
+    int weight = 1;
+
+    volatile long writeTime;
+
+    volatile long accessTime;
+
+    volatile long expiresAt;
+
+    volatile boolean fixedExpiry;
+
+    CacheItem<T> timerPrev;
+
+    CacheItem<T> timerNext;
+
+    volatile long slabChunk = SlabAllocator.NO_CHUNK;
+
+    /**
+     * Loads the value again, only set for entries that came from a loader.
+     */
+    volatile Supplier<? extends CompletableFuture<? extends T>> refresher;
+
+    private volatile boolean refreshing;
+
+    boolean startRefresh() {
+        return REFRESHING.compareAndSet(this, false, true);
+    }
+
+    void endRefresh() {
+        refreshing = false;
+    }
 
     @Override
     public String toString() {
         return "CacheItem{" +
-                       "value=" + value +
+                       "key=" + key +
+                       ", value=" + value +
                        ", isActive=" + isActive +
-                       ", timestamp=" + timestamp +
+                       ", accessTime=" + accessTime +
                        ", region=" + region +
                        '}';
     }
@@ -41,11 +101,11 @@ class CacheItem<T> {
     }
 
 
-    public CacheItem(T value, CacheRegionType region, Timestamp timestamp, int nodeNumber) {
+    public CacheItem(Object key, T value, CacheRegionType region, int nodeNumber) {
+        this.key = key;
         this.value = value;
         this.isActive = false;
-        this.timestamp = timestamp;
         this.region = region;
         this.nodeNumber = nodeNumber;
     }
-}
\ No newline at end of file
+}
@@ -1,29 +1,59 @@
 package org.bytestash.cache;
 
 import lombok.Getter;
+import org.bytestash.evictionpolicy.AdmissionPolicy;
 import org.bytestash.evictionpolicy.EvictionInfo;
+import org.bytestash.evictionpolicy.Expiry;
+import org.bytestash.evictionpolicy.FrequencySketch;
 import org.bytestash.evictionpolicy.TimeStampBasedEvictionInfo;
+import org.bytestash.key.CacheKey;
+import org.bytestash.stats.NodeStats;
+import org.bytestash.stats.RemovalCause;
+import org.bytestash.stats.StatsSnapshot;
+import org.bytestash.storage.JavaSerializer;
+import org.bytestash.storage.SegmentLog;
+import org.bytestash.storage.SlabAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.management.BadAttributeValueExpException;
-import java.sql.Timestamp;
-import java.time.Instant;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-public class CacheNode<T> implements Cache<String, T>, Crawlable {
+public class CacheNode<T> implements Cache<Object, T>, Crawlable {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheNode.class);
-    private long hotRegionSize;
-    private long warmRegionSize;
-    private long coldRegionSize;
+    private static final long NO_TTL = -1L;
+    private static final int REMOVE_SLICE_ENTRIES = 1024;
+    private static final long REMOVE_SLICE_MICROS = 1000;
+    private static final int MAX_GHOSTS = 1 << 14;
+    private static final int ENTRIES_CHUNK = 1024;
+    /**
+     * Region budgets and capacity are in the unit of the weigher, item counts with the default one.
+     */
+    private volatile long hotRegionSize;
+    private volatile long warmRegionSize;
+    private volatile long coldRegionSize;
 
     @Getter
     private final long capacity;
 
-    private long filledCapacity = 0;
+    private volatile long filledCapacity = 0;
+
+    private volatile long weightedSize = 0;
+
+    public long getWeightedSize() {
+        return weightedSize;
+    }
 
     @Override
     public long getFilledCapacity() {
@@ -37,12 +67,58 @@ public class CacheNode<T> implements Cache<String, T>, Crawlable {
 
     private final int ttl;
 
-    private ConcurrentHashMap<String, CacheItem<T>> localCache;
+    @Getter
+    private final Ticker ticker;
+
+    private ConcurrentHashMap<Object, CacheItem<T>> localCache;
+
+    protected Map<CacheRegionType, CacheRegion<T>> regions;
+
+    /**
+     * Guards the region lists, the region of every item, filledCapacity and weightedSize. Lookups in localCache and reads of
+     * HOT items never take it. In single writer mode only the writer touches the regions and this is a no-op.
+     */
+    private final Lock regionLock;
+
+    private final NodeWriter writer;
+
+    private final ValueStorage<T> valueStorage;
+
+    private final Weigher<Object, ? super T> weigher;
+
+    private final TimerWheel<T> timerWheel;
+
+    private final Expiry<Object, ? super T> expiry;
+
+    private final PendingLoads<T> pendingLoads;
+
+    private final long refreshAfterNanos;
+
+    private final FrequencySketch sketch;
+
+    private final Map<CacheRegionType, GhostList> ghosts;
+
+    private long minRegionSize;
+
+    private long maxRegionSize;
+
+    private long adaptStep;
+
+    private boolean deferMaintenance;
 
-    private ConcurrentHashMap<String, CacheItem<T>> localHotCache;
+    private final NodeStats stats = new NodeStats();
 
-    protected Map<CacheRegionType, CacheRegion> regions;
+    private final DiskTier<T> diskTier;
 
+    /**
+     * Entries evicted from COLD that still have to be written to the disk tier, they are written by
+     * {@link #drainSpills()} once the region lock is released.
+     */
+    private final Map<Object, CacheItem<T>> spilling;
+
+    private final AtomicBoolean drainingSpills = new AtomicBoolean();
+
+    @Getter
     private final int index;
 
     public CacheNode(long capacity, int index) {
@@ -54,7 +130,43 @@ public class CacheNode<T> implements Cache<String, T>, Crawlable {
     }
 
     public CacheNode(long capacity, float hotPercent, float warmPercent, int ttl, int index) {
+        this(capacity, hotPercent, warmPercent, ttl, index, NodeExecutionMode.DIRECT);
+    }
+
+    public CacheNode(long capacity, float hotPercent, float warmPercent, int ttl, int index, NodeExecutionMode executionMode) {
+        this(capacity, hotPercent, warmPercent, ttl, index, CacheNodeConfig.<T>builder().withExecutionMode(executionMode).build());
+    }
+
+    public CacheNode(long capacity, float hotPercent, float warmPercent, int ttl, int index, CacheNodeConfig<T> config) {
         this.index = index;
+        this.ticker = config.getTicker();
+        this.pendingLoads = new PendingLoads<>(ticker);
+        this.sketch = AdmissionPolicy.TINY_LFU.equals(config.getAdmissionPolicy()) ? new FrequencySketch(capacity) : null;
+        this.refreshAfterNanos = config.getRefreshAfterWrite() == null ? 0 : config.getRefreshAfterWrite().toNanos();
+        this.weigher = config.getWeigher();
+        this.expiry = config.getExpiry() != null ? config.getExpiry() : Expiry.afterAccess(Duration.ofSeconds(ttl));
+        this.timerWheel = config.isTimerWheel() ? new TimerWheel<>(ticker.read()) : null;
+        if (config.getValueSerializer() != null) {
+            valueStorage = new SlabValueStorage<>(new SlabAllocator(config.getOffHeapCapacity()), config.getValueSerializer());
+        } else {
+            valueStorage = new HeapValueStorage<>();
+        }
+        if (config.getDiskTierDirectory() != null) {
+            diskTier = new DiskTier<>(config.getDiskTierDirectory(), index, config.getDiskTierCapacity(), config.getDiskSegmentSize(),
+                    config.getValueSerializer() != null ? config.getValueSerializer() : new JavaSerializer<>(), ticker);
+            spilling = new ConcurrentHashMap<>();
+        } else {
+            diskTier = null;
+            spilling = null;
+        }
+        if (NodeExecutionMode.SINGLE_WRITER.equals(config.getExecutionMode())) {
+            regionLock = NoOpLock.INSTANCE;
+            deferMaintenance = true;
+            writer = new NodeWriter(index, this::runMaintenance);
+        } else {
+            regionLock = new ReentrantLock();
+            writer = null;
+        }
         if (hotPercent != 0f && warmPercent != 0f) {
             if (hotPercent + warmPercent > 0.5) {
                 generateCache(capacity, 0.1f, 0.2f, 0.7f);
@@ -66,6 +178,18 @@ public class CacheNode<T> implements Cache<String, T>, Crawlable {
         }
         this.ttl = ttl;
         this.capacity = capacity;
+        if (config.isAdaptiveSizing()) {
+            ghosts = new EnumMap<>(CacheRegionType.class);
+            int ghostCapacity = (int) Math.min(capacity, MAX_GHOSTS);
+            for (CacheRegionType type : CacheRegionType.values()) {
+                ghosts.put(type, new GhostList(ghostCapacity));
+            }
+            minRegionSize = Math.max(1, (long) (capacity * config.getMinRegionPercent()));
+            maxRegionSize = Math.max(minRegionSize, (long) (capacity * config.getMaxRegionPercent()));
+            adaptStep = Math.max(1, capacity / 100);
+        } else {
+            ghosts = null;
+        }
 
     }
 
@@ -74,153 +198,1181 @@ public class CacheNode<T> implements Cache<String, T>, Crawlable {
         hotRegionSize = (long) (capacity * hotPercent);
         warmRegionSize = (long) (capacity * warmPercent);
         coldRegionSize = (long) (capacity * coldPercent);
-        regions = new HashMap<>();
-        regions.put(CacheRegionType.HOT, new CacheRegion((int) hotRegionSize));
-        regions.put(CacheRegionType.WARM, new CacheRegion((int) warmRegionSize));
-        regions.put(CacheRegionType.COLD, new CacheRegion((int) coldRegionSize));
+        regions = new EnumMap<>(CacheRegionType.class);
+        regions.put(CacheRegionType.HOT, new CacheRegion<>(hotRegionSize));
+        regions.put(CacheRegionType.WARM, new CacheRegion<>(warmRegionSize));
+        regions.put(CacheRegionType.COLD, new CacheRegion<>(coldRegionSize));
         localCache = new ConcurrentHashMap<>();
-        localHotCache = new ConcurrentHashMap<>();
     }
 
-    public void put(String key, T value) {
+    /**
+     * In single writer mode the write is only queued, use {@link #putAsync} to wait for it.
+     */
+    public void put(Object key, T value) {
+        put(key, value, NO_TTL);
+    }
+
+    /**
+     * Writes the entry with its own time to live, it expires ttl after this write whatever the expiry policy
+     * of the node is.
+     */
+    public void put(Object key, T value, Duration ttl) {
+        put(key, value, toTtlNanos(ttl));
+    }
+
+    private void put(Object key, T value, long ttlNanos) {
+        long start = stats.startTimer();
+        if (writer != null) {
+            writer.execute(() -> applyPut(key, value, ttlNanos));
+        } else {
+            applyPut(key, value, ttlNanos);
+        }
+        drainSpills();
+        stats.recordPut(start);
+    }
+
+    public CompletableFuture<Void> putAsync(Object key, T value) {
+        return putAsync(key, value, NO_TTL);
+    }
+
+    public CompletableFuture<Void> putAsync(Object key, T value, Duration ttl) {
+        return putAsync(key, value, toTtlNanos(ttl));
+    }
+
+    private CompletableFuture<Void> putAsync(Object key, T value, long ttlNanos) {
+        long start = stats.startTimer();
+        CompletableFuture<Void> written = submit(() -> {
+            applyPut(key, value, ttlNanos);
+            stats.recordPut(start);
+            return null;
+        });
+        written.whenComplete((ignored, error) -> drainSpills());
+        return written;
+    }
+
+    private static long toTtlNanos(Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Time to live has to be positive: " + ttl);
+        }
+        return ttl.toNanos();
+    }
+
+    private void applyPut(Object key, T value, long ttlNanos) {
+        PendingPut<T> put = preparePut(key, value, ttlNanos);
+        if (put.added || put.weight != put.item.weight || CacheRegionType.COLD.equals(put.item.getRegion())
+                    || (put.expiresEarlier && timerWheel != null)) {
+            regionLock.lock();
+            try {
+                completePut(put);
+            } finally {
+                regionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Stores the value and the expiration of the entry without the region lock. The region bookkeeping is left
+     * to {@link #completePut}: a new item still has to be linked into HOT, an existing one reweighed and moved
+     * out of COLD.
+     */
+    private PendingPut<T> preparePut(Object key, T value, long ttlNanos) {
+        pendingLoads.invalidate(key);
+        CacheItem<T> item = localCache.get(key);
+        if (item == null) {
+            recordAccess(key);
+            CacheItem<T> newItem = createItem(key, value, ttlNanos);
+            item = localCache.putIfAbsent(key, newItem);
+            if (item == null) {
+                dropFromDisk(key);
+                return new PendingPut<>(newItem, true, newItem.weight, false);
+            }
+            valueStorage.release(newItem);
+        }
+        storeValue(item, value);
+        item.setActive(true);
+        long now = ticker.read();
+        long previousExpiry = item.expiresAt;
+        if (ttlNanos != NO_TTL) {
+            setExpiration(item, now, ttlNanos, true);
+        } else {
+            setExpiration(item, now, expiry.expireAfterUpdate(userKey(key), value, now, item.expiresAt - now), false);
+        }
+        return new PendingPut<>(item, false, weigh(key, value), item.expiresAt - previousExpiry < 0);
+    }
+
+    private void completePut(PendingPut<T> put) {
+        CacheItem<T> item = put.item;
+        if (put.added) {
+            linkNewItem(item);
+            return;
+        }
+        if (item.removed) {
+            return;
+        }
+        reweigh(item, put.weight);
+        if (CacheRegionType.COLD.equals(item.getRegion())) {
+            addItemToDifferentRegion(item, CacheRegionType.WARM);
+        }
+        if (put.expiresEarlier) {
+            applyReschedule(item);
+        }
+    }
+
+    /**
+     * The timing wheel only puts back items whose expiration moved later, an item whose expiration moved
+     * earlier has to leave the bucket of its old time.
+     */
+    private void reschedule(CacheItem<T> item) {
+        if (writer != null) {
+            writer.execute(() -> applyReschedule(item));
+            return;
+        }
+        regionLock.lock();
+        try {
+            applyReschedule(item);
+        } finally {
+            regionLock.unlock();
+        }
+    }
+
+    /**
+     * Only an item already in the wheel is moved, one not linked yet is scheduled with its current time when
+     * it is.
+     */
+    private void applyReschedule(CacheItem<T> item) {
+        if (timerWheel != null && !item.removed && item.timerNext != null) {
+            timerWheel.deschedule(item);
+            timerWheel.schedule(item);
+        }
+    }
+
+    /**
+     * Writes all the entries in one batch. Values are stored without the node lock, the region bookkeeping of
+     * all of them is done under a single acquisition of it, or as a single task of the writer.
+     */
+    public void putAll(List<?> keys, List<? extends T> values) {
+        if (writer != null) {
+            writer.execute(() -> applyPutAll(keys, values));
+        } else {
+            applyPutAll(keys, values);
+        }
+        drainSpills();
+    }
+
+    private void applyPutAll(List<?> keys, List<? extends T> values) {
+        List<PendingPut<T>> puts = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            puts.add(preparePut(keys.get(i), values.get(i), NO_TTL));
+        }
+        regionLock.lock();
+        try {
+            puts.forEach(this::completePut);
+        } finally {
+            regionLock.unlock();
+        }
+        stats.recordPuts(keys.size());
+    }
+
+    /**
+     * Values of the keys in the same order, null for a miss. Lookups take no lock, the entries read outside
+     * HOT are moved to WARM together in one batch.
+     */
+    public List<T> getAll(List<?> keys) {
+        List<T> values = new ArrayList<>(keys.size());
+        List<CacheItem<T>> promoted = new ArrayList<>();
+        int hits = 0;
+        for (Object key : keys) {
+            T value = getValue(key, promoted);
+            if (value != null) {
+                hits++;
+            }
+            values.add(value);
+        }
+        stats.recordGets(hits, keys.size() - hits);
+        if (!promoted.isEmpty()) {
+            if (writer != null) {
+                writer.execute(() -> promoted.forEach(item -> addItemToDifferentRegion(item, CacheRegionType.WARM)));
+            } else {
+                regionLock.lock();
+                try {
+                    promoted.forEach(item -> addItemToDifferentRegion(item, CacheRegionType.WARM));
+                } finally {
+                    regionLock.unlock();
+                }
+            }
+        }
+        drainSpills();
+        return values;
+    }
+
+    /**
+     * Value of the key, loading it on a miss. Concurrent misses on the key share one load, the loaded value is
+     * stored unless a value was written meanwhile. With a negative ttl a load that found nothing is remembered
+     * for that long and completes later misses with null. The call is counted as one get in the stats.
+     */
+    public CompletableFuture<T> getOrLoad(Object key, Supplier<? extends CompletableFuture<? extends T>> loader,
+                                          long timeoutNanos, long negativeTtlNanos) {
+        long start = stats.startTimer();
+        T value = getValue(key, null);
+        stats.recordGet(value != null, start);
+        drainSpills();
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return pendingLoads.load(key, () -> getValue(key, null), loader, loaded -> putLoaded(key, loaded, loader), timeoutNanos, negativeTtlNanos);
+    }
 
-        if (localHotCache.containsKey(key)) {
-            CacheItem<T> item = localHotCache.get(key);
-            item.setValue(value);
-            item.setActive(true);
-            item.setTimestamp(Timestamp.from(Instant.now()));
-        } else if (localCache.containsKey(key)) {
+    private void putLoaded(Object key, T value, Supplier<? extends CompletableFuture<? extends T>> loader) {
+        if (putIfAbsent(key, value) && refreshAfterNanos > 0) {
             CacheItem<T> item = localCache.get(key);
-            item.setValue(value);
-            item.setActive(true);
-            if (!CacheRegionType.WARM.equals(item.getRegion())) {
-                addKeyToDifferentRegion(key, CacheRegionType.WARM, item);
+            if (item != null) {
+                item.refresher = loader;
+            }
+        }
+    }
+
+    private boolean isRefreshDue(CacheItem<T> item, long now) {
+        return refreshAfterNanos > 0 && item.refresher != null && now - item.writeTime >= refreshAfterNanos;
+    }
+
+    /**
+     * Loads the value of the entry again in the background, the current value stays until the new one arrives.
+     * Only one refresh of an entry runs at a time and a failed refresh keeps the current value.
+     */
+    private void refresh(CacheItem<T> item) {
+        Supplier<? extends CompletableFuture<? extends T>> refresher = item.refresher;
+        if (refresher == null || !item.startRefresh()) {
+            return;
+        }
+        CompletableFuture<? extends T> refreshing;
+        try {
+            refreshing = refresher.get();
+        } catch (RuntimeException e) {
+            item.endRefresh();
+            logger.debug("Node : {} , refresh of {} failed with error : {}", index, item.getKey(), e, e);
+            return;
+        }
+        refreshing.whenComplete((value, error) -> {
+            try {
+                if (error == null && value != null && localCache.get(item.getKey()) == item) {
+                    put(item.getKey(), value);
+                } else if (error != null) {
+                    logger.debug("Node : {} , refresh of {} failed with error : {}", index, item.getKey(), error, error);
+                }
+            } finally {
+                item.endRefresh();
             }
-            item.setTimestamp(Timestamp.from(Instant.now()));
+        });
+    }
+
+    public boolean putIfAbsent(Object key, T value) {
+        boolean added = execute(() -> applyPutIfAbsent(key, value));
+        drainSpills();
+        return added;
+    }
+
+    private boolean applyPutIfAbsent(Object key, T value) {
+        CacheItem<T> newItem = createItem(key, value, NO_TTL);
+        if (localCache.putIfAbsent(key, newItem) != null) {
+            valueStorage.release(newItem);
+            return false;
+        }
+        dropFromDisk(key);
+        addNewItemToRegion(newItem);
+        stats.recordPuts(1);
+        return true;
+    }
+
+    private CacheItem<T> createItem(Object key, T value, long ttlNanos) {
+        CacheItem<T> item = new CacheItem<>(key, null, CacheRegionType.HOT, index);
+        long now = ticker.read();
+        if (ttlNanos != NO_TTL) {
+            setExpiration(item, now, ttlNanos, true);
         } else {
-            localHotCache.put(key, new CacheItem<>(value, CacheRegionType.HOT, Timestamp.from(Instant.now()), index));
-            filledCapacity++;
-            addNewKeyToRegion(key, CacheRegionType.HOT);
-            ensureHotRegionSize();
+            setExpiration(item, now, expiry.expireAfterCreate(userKey(key), value, now), false);
         }
+        item.weight = weigh(key, value);
+        storeValue(item, value);
+        return item;
     }
 
-    public void addNewKeyToRegion(String key, CacheRegionType region) {
-        regions.get(region).add(key);
+    private void setExpiration(CacheItem<T> item, long now, long duration, boolean fixed) {
+        item.writeTime = now;
+        item.accessTime = now;
+        item.expiresAt = now + Math.max(0L, duration);
+        item.fixedExpiry = fixed;
     }
 
-    public T get(String key) {
-        if (localHotCache.containsKey(key)) {
-            return updateKeyDetails(key, localHotCache);
+    /**
+     * Reads only store when the coarse clock moved on, so hot keys read from many threads do not keep
+     * invalidating the cache line of the item.
+     */
+    private void recordRead(CacheItem<T> item, long now, long duration) {
+        if (item.accessTime != now) {
+            item.accessTime = now;
         }
-        if (localCache.containsKey(key)) {
-            return updateKeyDetails(key, localCache);
+        long expiresAt = now + Math.max(0L, duration);
+        if (item.expiresAt != expiresAt) {
+            item.expiresAt = expiresAt;
         }
-        return null;
     }
 
-    private T updateKeyDetails(String key, ConcurrentHashMap<String, CacheItem<T>> cache) {
-        CacheItem<T> item = cache.get(key);
-        keyAccessedAgain(key, item);
-        item.setTimestamp(Timestamp.from(Instant.now()));
-        return item.getValue();
+    private static Object userKey(Object key) {
+        return key instanceof CacheKey ? ((CacheKey) key).getKey() : key;
     }
 
-    private void keyAccessedAgain(String key, CacheItem<T> item) {
-        item.setActive(true);
+    private int weigh(Object key, T value) {
+        int weight = weigher.weigh(userKey(key), value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight of an entry cannot be negative: " + weight);
+        }
+        return weight;
+    }
+
+    private void reweigh(CacheItem<T> item, int weight) {
+        if (item.weight == weight) {
+            return;
+        }
+        CacheRegion<T> region = regions.get(item.getRegion());
+        if (region.contains(item)) {
+            weightedSize += weight - item.weight;
+        }
+        region.reweigh(item, weight);
+        ensureRegionSize(item.getRegion());
+    }
+
+    private void storeValue(CacheItem<T> item, T value) {
+        while (!valueStorage.store(item, value)) {
+            if (!evictOldest()) {
+                throw new IllegalStateException("No room left in the value storage of node " + index);
+            }
+        }
+    }
+
+    private boolean evictOldest() {
+        regionLock.lock();
+        try {
+            for (CacheRegionType type : new CacheRegionType[]{CacheRegionType.COLD, CacheRegionType.WARM, CacheRegionType.HOT}) {
+                CacheItem<T> item = regions.get(type).first();
+                if (item != null) {
+                    evictForCapacity(item);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            regionLock.unlock();
+        }
+    }
+
+    /**
+     * Entries of the node region by region, HOT, WARM then COLD, each from the least to the most recently used.
+     * Expired entries are left out.
+     */
+    public List<NodeEntry<T>> entries() {
+        List<NodeEntry<T>> entries = new ArrayList<>();
+        entries(ENTRIES_CHUNK, entries::addAll);
+        return entries;
+    }
+
+    /**
+     * Streams the entries in the order of {@link #entries()}, at most chunkSize at a time. The node lock is
+     * released between two chunks and the values are loaded without it, so with concurrent writes the entries
+     * are a fuzzy view: one moved to another region can be passed twice and one removed can still be passed.
+     */
+    public void entries(int chunkSize, Consumer<List<NodeEntry<T>>> consumer) {
+        walk(chunkSize, item -> item.expiresAt - ticker.read() > 0, items -> {
+            List<NodeEntry<T>> entries = new ArrayList<>(items.size());
+            long now = ticker.read();
+            for (CacheItem<T> item : items) {
+                long remaining = item.expiresAt - now;
+                T value = remaining > 0 ? valueStorage.load(item) : null;
+                if (value != null) {
+                    entries.add(new NodeEntry<>(item.getKey(), value, item.getRegion(), remaining, item.fixedExpiry));
+                }
+            }
+            consumer.accept(entries);
+        });
+    }
+
+    /**
+     * Adds an entry read back from a snapshot behind the entries of its region, so restoring the entries in
+     * the order of {@link #entries()} keeps the recency order. A value already in the node is kept.
+     */
+    public boolean restore(Object key, T value, CacheRegionType region, long ttlNanos, boolean fixedExpiry) {
+        boolean restored = execute(() -> applyRestore(key, value, region, ttlNanos, fixedExpiry, false));
+        drainSpills();
+        return restored;
+    }
+
+    private boolean applyRestore(Object key, T value, CacheRegionType region, long ttlNanos, boolean fixedExpiry, boolean replace) {
+        CacheItem<T> item = new CacheItem<>(key, null, region, index);
+        setExpiration(item, ticker.read(), ttlNanos, fixedExpiry);
+        item.weight = weigh(key, value);
+        storeValue(item, value);
+        CacheItem<T> replaced = null;
+        if (replace) {
+            replaced = localCache.put(key, item);
+        } else if (localCache.putIfAbsent(key, item) != null) {
+            valueStorage.release(item);
+            return false;
+        }
+        regionLock.lock();
+        try {
+            if (replaced != null) {
+                removeFromRegion(replaced);
+            }
+            if (!item.removed) {
+                regions.get(region).add(item);
+                if (timerWheel != null) {
+                    timerWheel.schedule(item);
+                }
+                filledCapacity++;
+                weightedSize += item.weight;
+                ensureRegionSize(region);
+            }
+        } finally {
+            regionLock.unlock();
+        }
+        if (replaced != null) {
+            valueStorage.release(replaced);
+        }
+        return true;
+    }
+
+    /**
+     * Moves the entries another node owns now to that node, region by region from the least recently used on,
+     * then the ones written meanwhile. Entries keep their region, remaining ttl and refresher, expired ones are
+     * dropped. The node lock is only held while a chunk is taken out, pause runs between two chunks. Returns
+     * the number of entries moved.
+     */
+    public long migrate(Function<Object, CacheNode<T>> owners, int chunkSize, Runnable pause) {
+        long[] moved = {0};
+        walk(chunkSize, item -> {
+            if (owners.apply(item.getKey()) == this) {
+                return false;
+            }
+            if (item.expiresAt - ticker.read() <= 0) {
+                evict(item, RemovalCause.EXPIRED);
+                return false;
+            }
+            localCache.remove(item.getKey(), item);
+            removeFromRegion(item);
+            return true;
+        }, items -> {
+            for (CacheItem<T> item : items) {
+                if (handOver(item, owners.apply(item.getKey()))) {
+                    moved[0]++;
+                }
+            }
+            pause.run();
+        });
+        return moved[0] + migrateRemaining(owners);
+    }
+
+    /**
+     * Moves the keys another node owns now without walking the regions, for the writes that landed after
+     * {@link #migrate} went past them. The entries of the disk tier are moved too, they land in COLD of their
+     * new node.
+     */
+    public long migrateRemaining(Function<Object, CacheNode<T>> owners) {
+        List<Object> remaining = new ArrayList<>();
+        for (Object key : localCache.keySet()) {
+            if (owners.apply(key) != this) {
+                remaining.add(key);
+            }
+        }
+        if (diskTier != null) {
+            drainSpills();
+            for (Object key : diskTier.keys()) {
+                if (owners.apply(key) != this) {
+                    remaining.add(key);
+                }
+            }
+        }
+        long moved = 0;
+        for (Object key : remaining) {
+            if (moveTo(key, owners.apply(key)) != null) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Moves the entry of the key to the target node with its region, remaining ttl and refresher. Returns its
+     * value, null when the key is missing or expired. An entry the target already has is kept there. An entry
+     * found in the disk tier is moved to COLD of the target.
+     */
+    public T moveTo(Object key, CacheNode<T> target) {
+        return moveTo(key, target, false);
+    }
+
+    /**
+     * Like {@link #moveTo(Object, CacheNode)}, with replace the moved entry replaces the one of the target.
+     */
+    public T moveTo(Object key, CacheNode<T> target, boolean replace) {
+        CacheItem<T> item = execute(() -> {
+            regionLock.lock();
+            try {
+                CacheItem<T> taken = localCache.remove(key);
+                if (taken == null) {
+                    return null;
+                }
+                removeFromRegion(taken);
+                if (taken.expiresAt - ticker.read() <= 0) {
+                    valueStorage.release(taken);
+                    stats.recordRemoval(RemovalCause.EXPIRED);
+                    return null;
+                }
+                return taken;
+            } finally {
+                regionLock.unlock();
+            }
+        });
+        if (item == null) {
+            return diskTier != null ? handOver(takeFromDisk(key), target, replace) : null;
+        }
+        T value = valueStorage.load(item);
+        handOver(item, value, target, replace);
+        return value;
+    }
+
+    private T handOver(NodeEntry<T> entry, CacheNode<T> target, boolean replace) {
+        if (entry == null) {
+            return null;
+        }
+        target.execute(() -> target.applyRestore(entry.getKey(), entry.getValue(), entry.getRegion(), entry.getRemainingTtlNanos(),
+                entry.isFixedExpiry(), replace));
+        target.drainSpills();
+        return entry.getValue();
+    }
+
+    private boolean handOver(CacheItem<T> item, CacheNode<T> target) {
+        return handOver(item, valueStorage.load(item), target, false);
+    }
+
+    /**
+     * Restores an item taken out of this node in the target, the value storage of the item is released.
+     */
+    private boolean handOver(CacheItem<T> item, T value, CacheNode<T> target, boolean replace) {
+        valueStorage.release(item);
+        long remaining = item.expiresAt - ticker.read();
+        if (value == null || remaining <= 0) {
+            return false;
+        }
+        Object key = item.getKey();
         CacheRegionType region = item.getRegion();
-        if (!CacheRegionType.HOT.equals(region)) {
-            addKeyToDifferentRegion(key, CacheRegionType.WARM, item);
+        boolean added = target.execute(() -> target.applyRestore(key, value, region, remaining, item.fixedExpiry, replace));
+        target.drainSpills();
+        if (!added) {
+            return false;
+        }
+        CacheItem<T> restored = target.localCache.get(item.getKey());
+        if (restored != null) {
+            restored.writeTime = item.writeTime;
+            restored.refresher = item.refresher;
+        }
+        return true;
+    }
+
+    /**
+     * Walks the regions, HOT, WARM then COLD, each from the least to the most recently used item. The node
+     * lock is held while the visitor sees a chunk of at most chunkSize items, the items it picked are passed
+     * to the action once the lock is released.
+     */
+    private void walk(int chunkSize, Predicate<CacheItem<T>> visitor, Consumer<List<CacheItem<T>>> action) {
+        for (CacheRegionType type : CacheRegionType.values()) {
+            CacheRegion<T> region = regions.get(type);
+            CacheRegion.Cursor<T> cursor = new CacheRegion.Cursor<>();
+            try {
+                boolean more = true;
+                while (more) {
+                    List<CacheItem<T>> picked = new ArrayList<>();
+                    more = execute(() -> {
+                        regionLock.lock();
+                        try {
+                            if (!cursor.isOpen()) {
+                                region.open(cursor);
+                            }
+                            for (int i = 0; i < chunkSize; i++) {
+                                CacheItem<T> item = region.advance(cursor);
+                                if (item == null) {
+                                    region.close(cursor);
+                                    return false;
+                                }
+                                if (visitor.test(item)) {
+                                    picked.add(item);
+                                }
+                            }
+                            return true;
+                        } finally {
+                            regionLock.unlock();
+                        }
+                    });
+                    if (!picked.isEmpty()) {
+                        action.accept(picked);
+                    }
+                }
+            } finally {
+                if (cursor.isOpen()) {
+                    execute(() -> {
+                        regionLock.lock();
+                        try {
+                            region.close(cursor);
+                        } finally {
+                            regionLock.unlock();
+                        }
+                        return null;
+                    });
+                }
+            }
+        }
+    }
+
+    private void addNewItemToRegion(CacheItem<T> item) {
+        regionLock.lock();
+        try {
+            linkNewItem(item);
+        } finally {
+            regionLock.unlock();
+        }
+    }
+
+    private void linkNewItem(CacheItem<T> item) {
+        if (item.removed) {
+            return;
+        }
+        if (ghosts != null) {
+            adaptOnGhostHit(hash(item.getKey()));
+        }
+        regions.get(CacheRegionType.HOT).add(item);
+        if (timerWheel != null) {
+            timerWheel.schedule(item);
+        }
+        filledCapacity++;
+        weightedSize += item.weight;
+        ensureRegionSize(CacheRegionType.HOT);
+    }
+
+    public T get(Object key) {
+        long start = stats.startTimer();
+        T value = getValue(key, null);
+        stats.recordGet(value != null, start);
+        drainSpills();
+        return value;
+    }
+
+    /**
+     * With a promoted list the entries read outside HOT are added to it instead of being moved to WARM.
+     */
+    private T getValue(Object key, List<CacheItem<T>> promoted) {
+        recordAccess(key);
+        CacheItem<T> item = localCache.get(key);
+        if (item == null) {
+            return diskTier != null ? loadFromDisk(key) : null;
+        }
+        long now = ticker.read();
+        if (item.expiresAt - now <= 0) {
+            expire(item);
+            return null;
+        }
+        T value = valueStorage.load(item);
+        if (value == null) {
+            return null;
+        }
+        item.setActive(true);
+        if (!CacheRegionType.HOT.equals(item.getRegion())) {
+            if (promoted != null) {
+                promoted.add(item);
+            } else if (writer != null) {
+                writer.execute(() -> addItemToDifferentRegion(item, CacheRegionType.WARM));
+            } else {
+                moveItem(item, CacheRegionType.WARM);
+            }
+        }
+        if (!item.fixedExpiry) {
+            long previousExpiry = item.expiresAt;
+            recordRead(item, now, expiry.expireAfterRead(userKey(key), value, now, item.expiresAt - now));
+            if (timerWheel != null && item.expiresAt - previousExpiry < 0) {
+                reschedule(item);
+            }
+        }
+        if (isRefreshDue(item, now)) {
+            refresh(item);
+        }
+        return value;
+    }
+
+    /**
+     * Moves an entry found in the disk tier back into WARM with the time to live it had left.
+     */
+    private T loadFromDisk(Object key) {
+        NodeEntry<T> entry = takeFromDisk(key);
+        if (entry == null) {
+            return null;
+        }
+        restore(key, entry.getValue(), CacheRegionType.WARM, entry.getRemainingTtlNanos(), false);
+        return entry.getValue();
+    }
+
+    /**
+     * Takes the entry of the key out of the disk tier, or out of the spills still pending for it. Null when it
+     * is in neither or expired.
+     */
+    private NodeEntry<T> takeFromDisk(Object key) {
+        CacheItem<T> pending = spilling.remove(key);
+        SegmentLog.Record record = diskTier.take(key);
+        long now = ticker.read();
+        if (pending != null) {
+            T value = valueStorage.load(pending);
+            valueStorage.release(pending);
+            long remaining = pending.expiresAt - now;
+            return value == null || remaining <= 0 ? null : new NodeEntry<>(key, value, CacheRegionType.COLD, remaining, pending.fixedExpiry);
+        }
+        if (record == null) {
+            return null;
+        }
+        return new NodeEntry<>(key, diskTier.value(record), CacheRegionType.COLD, record.getExpiresAt() - now, false);
+    }
+
+    /**
+     * Drops the entry of a key written again to memory from the disk tier, pending spill included.
+     */
+    private void dropFromDisk(Object key) {
+        if (diskTier == null) {
+            return;
+        }
+        CacheItem<T> pending = spilling.remove(key);
+        if (pending != null) {
+            valueStorage.release(pending);
+        }
+        diskTier.remove(key);
+    }
+
+    /**
+     * Writes the pending spills to the disk tier, called once the region lock is released. One thread drains
+     * at a time. A spill whose key was written or removed meanwhile is taken back out of the tier, whoever
+     * takes an item out of the pending spills releases its value storage.
+     */
+    private void drainSpills() {
+        while (spilling != null && !spilling.isEmpty() && drainingSpills.compareAndSet(false, true)) {
+            try {
+                for (CacheItem<T> item : spilling.values()) {
+                    T value = valueStorage.load(item);
+                    if (value != null) {
+                        diskTier.spill(item.getKey(), value, item.expiresAt);
+                    }
+                    if (spilling.remove(item.getKey(), item)) {
+                        valueStorage.release(item);
+                    } else {
+                        diskTier.remove(item.getKey());
+                    }
+                }
+            } finally {
+                drainingSpills.set(false);
+            }
+        }
+    }
+
+    /**
+     * Entries in the disk tier, pending spills included, 0 without one.
+     */
+    public int getDiskEntryCount() {
+        return diskTier == null ? 0 : diskTier.size() + spilling.size();
+    }
+
+    /**
+     * Removes an entry found expired on read, the entry may have been replaced or removed meanwhile.
+     */
+    private void expire(CacheItem<T> item) {
+        if (writer != null) {
+            writer.execute(() -> evictIfPresent(item));
+            return;
+        }
+        regionLock.lock();
+        try {
+            evictIfPresent(item);
+        } finally {
+            regionLock.unlock();
+        }
+    }
+
+    private void evictIfPresent(CacheItem<T> item) {
+        if (!item.removed) {
+            evict(item, RemovalCause.EXPIRED);
+        }
+    }
+
+    private void moveItem(CacheItem<T> item, CacheRegionType region) {
+        regionLock.lock();
+        try {
+            addItemToDifferentRegion(item, region);
+        } finally {
+            regionLock.unlock();
         }
     }
 
-    private void addKeyToDifferentRegion(String key, CacheRegionType region, CacheItem<T> item) {
-        removeFromRegion(key);
-        regions.get(region).add(key);
+    private void addItemToDifferentRegion(CacheItem<T> item, CacheRegionType region) {
+        if (item.removed) {
+            return;
+        }
+        regions.get(item.getRegion()).remove(item);
+        regions.get(region).add(item);
+        if (CacheRegionType.COLD.equals(region)) {
+            item.demotedFrom = item.getRegion();
+            stats.recordDemotion();
+        } else if (CacheRegionType.WARM.equals(region) && !CacheRegionType.WARM.equals(item.getRegion())) {
+            stats.recordPromotion();
+        }
         item.setRegion(region);
         ensureRegionSize(region);
     }
 
-    public T remove(String key) {
-        CacheItem<T> item = removeFromCacheAndRegion(key, localHotCache);
-        item = item != null ? item : removeFromCacheAndRegion(key, localCache);
-        return item != null ? item.getValue() : null;
+    public T remove(Object key) {
+        T value = execute(() -> applyRemove(key));
+        drainSpills();
+        return value;
     }
 
-    public void transferFromHotCache(String key) {
-        CacheItem<T> item = removeFromCacheAndRegion(key, localHotCache);
-        if (!item.isActive()) {
-            localCache.put(key, item);
-            filledCapacity++;
-            addKeyToDifferentRegion(key, CacheRegionType.COLD, item);
-        } else {
-            localCache.put(key, item);
-            filledCapacity++;
-            addKeyToDifferentRegion(key, CacheRegionType.WARM, item);
+    /**
+     * Removes all the keys in one batch and returns the removed values in the same order, null for a miss.
+     */
+    public List<T> removeAll(List<?> keys) {
+        return execute(() -> applyRemoveAll(keys));
+    }
+
+    private List<T> applyRemoveAll(List<?> keys) {
+        List<CacheItem<T>> items = new ArrayList<>(keys.size());
+        regionLock.lock();
+        try {
+            for (Object key : keys) {
+                CacheItem<T> item = localCache.remove(key);
+                if (item != null) {
+                    removeFromRegion(item);
+                }
+                items.add(item);
+            }
+        } finally {
+            regionLock.unlock();
         }
+        List<T> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            values.add(removedValue(keys.get(i), items.get(i)));
+        }
+        return values;
     }
 
-    private CacheItem<T> removeFromCacheAndRegion(String key, ConcurrentMap<String, CacheItem<T>> cache) {
-        if (cache.containsKey(key)) {
-            CacheItem<T> removedItem = cache.remove(key);
-            if (null != removedItem) {
-                regions.get(removedItem.getRegion()).remove(key);
-                filledCapacity--;
-                return removedItem;
+    public CompletableFuture<T> removeAsync(Object key) {
+        return submit(() -> applyRemove(key));
+    }
+
+    private T applyRemove(Object key) {
+        CacheItem<T> item = localCache.remove(key);
+        if (item != null) {
+            regionLock.lock();
+            try {
+                removeFromRegion(item);
+            } finally {
+                regionLock.unlock();
             }
         }
-        return null;
+        return removedValue(key, item);
     }
 
+    /**
+     * Value of an item taken out of the node, loaded and released once the region lock is no longer held. A
+     * key missing from memory is taken from the disk tier.
+     */
+    private T removedValue(Object key, CacheItem<T> item) {
+        if (item == null) {
+            NodeEntry<T> entry = diskTier != null ? takeFromDisk(key) : null;
+            return entry == null ? null : entry.getValue();
+        }
+        if (item.expiresAt - ticker.read() <= 0) {
+            valueStorage.release(item);
+            stats.recordRemoval(RemovalCause.EXPIRED);
+            return null;
+        }
+        stats.recordRemoval(RemovalCause.EXPLICIT);
+        T value = valueStorage.load(item);
+        valueStorage.release(item);
+        return value;
+    }
 
-    public void removeFromRegion(String key) {
-        if (localHotCache.containsKey(key)) {
-            CacheItem<T> item = localHotCache.get(key);
-            regions.get(item.getRegion()).remove(key);
-        } else if (localCache.containsKey(key)) {
-            CacheItem<T> item = localCache.get(key);
-            regions.get(item.getRegion()).remove(key);
+    private void removeFromRegion(CacheItem<T> item) {
+        CacheRegion<T> region = regions.get(item.getRegion());
+        if (region.contains(item)) {
+            region.remove(item);
+            filledCapacity--;
+            weightedSize -= item.weight;
         }
+        if (timerWheel != null) {
+            timerWheel.deschedule(item);
+        }
+        item.removed = true;
     }
 
-    public EvictionInfo removeItems(CacheRegionType region) {
-        Timestamp oldestTimestamp = Timestamp.from(Instant.now());
-        List<String> set = new ArrayList<>(regions.get(region).region);
-        for (String key : set) {
-            Timestamp timestamp = removeKeyIfExpired(key, region);
-            if (timestamp != null) {
-                int val = timestamp.compareTo(oldestTimestamp);
-                if (val < 0) {
-                    oldestTimestamp = timestamp;
+    private void evict(CacheItem<T> item, RemovalCause cause) {
+        localCache.remove(item.getKey(), item);
+        removeFromRegion(item);
+        valueStorage.release(item);
+        stats.recordRemoval(cause);
+    }
+
+    /**
+     * Evicts to make room, with adaptive sizing the key is remembered in the ghost list of the region that
+     * held it last: the region it was demoted from when it is evicted from COLD. Entries leaving COLD are
+     * queued for the disk tier when the node has one, they keep their value storage until they are written.
+     */
+    private void evictForCapacity(CacheItem<T> item) {
+        if (ghosts != null) {
+            CacheRegionType region = item.getRegion();
+            if (CacheRegionType.COLD.equals(region) && CacheRegionType.WARM.equals(item.demotedFrom)) {
+                region = CacheRegionType.WARM;
+            }
+            ghosts.get(region).add(hash(item.getKey()));
+        }
+        if (diskTier != null && CacheRegionType.COLD.equals(item.getRegion())) {
+            localCache.remove(item.getKey(), item);
+            removeFromRegion(item);
+            stats.recordRemoval(RemovalCause.SIZE);
+            CacheItem<T> replaced = spilling.put(item.getKey(), item);
+            if (replaced != null) {
+                valueStorage.release(replaced);
+            }
+            return;
+        }
+        evict(item, RemovalCause.SIZE);
+    }
+
+    /**
+     * A new key that was evicted recently means the region that held it was too small, it grows by a step
+     * taken from the region with the most room above its minimum.
+     */
+    private void adaptOnGhostHit(int hash) {
+        for (CacheRegionType grow : CacheRegionType.values()) {
+            if (ghosts.get(grow).remove(hash)) {
+                CacheRegionType donor = null;
+                long slack = 0;
+                for (CacheRegionType type : CacheRegionType.values()) {
+                    if (type != grow && getRegionSize(type) - minRegionSize > slack) {
+                        slack = getRegionSize(type) - minRegionSize;
+                        donor = type;
+                    }
                 }
+                long delta = Math.min(adaptStep, Math.min(slack, maxRegionSize - getRegionSize(grow)));
+                if (donor != null && delta > 0) {
+                    setRegionSize(grow, getRegionSize(grow) + delta);
+                    setRegionSize(donor, getRegionSize(donor) - delta);
+                    logger.debug("Node : {} , ghost hit in {} moved {} from {}", index, grow, delta, donor);
+                    ensureRegionSize(donor);
+                }
+                return;
             }
         }
+    }
 
-        return new TimeStampBasedEvictionInfo(oldestTimestamp);
+    /**
+     * Counters of the node since it was created, taken without locking so they can be slightly apart.
+     */
+    public StatsSnapshot getStats() {
+        return stats.snapshot(filledCapacity, weightedSize);
     }
 
-    public Timestamp removeKeyIfExpired(String key, CacheRegionType region) {
-        if (region.equals(CacheRegionType.HOT)) {
-            CacheItem<T> item = localHotCache.get(key);
-            long life = (Instant.now().toEpochMilli() - item.getTimestamp().toInstant().toEpochMilli()) / 1000;
-            if (life > ttl) {
-                remove(key);
-            } else {
-                return item.getTimestamp();
+    /**
+     * Current size limit of the region, in weight units. It changes over time with adaptive sizing.
+     */
+    public long getRegionSize(CacheRegionType region) {
+        return switch (region) {
+            case HOT -> hotRegionSize;
+            case WARM -> warmRegionSize;
+            case COLD -> coldRegionSize;
+        };
+    }
+
+    private void setRegionSize(CacheRegionType region, long size) {
+        switch (region) {
+            case HOT -> hotRegionSize = size;
+            case WARM -> warmRegionSize = size;
+            case COLD -> coldRegionSize = size;
+        }
+        regions.get(region).regionMaxSize = size;
+    }
+
+    private void transferFromHotCache(CacheItem<T> item) {
+        if (!item.isActive()) {
+            if (sketch != null && !admit(item)) {
+                evictForCapacity(item);
+                return;
             }
+            addItemToDifferentRegion(item, CacheRegionType.COLD);
         } else {
-            CacheItem<T> item = localCache.get(key);
-            long life = (Instant.now().toEpochMilli() - item.getTimestamp().toInstant().toEpochMilli()) / 1000;
-            if (life > ttl) {
-                remove(key);
-            } else {
-                return item.getTimestamp();
+            addItemToDifferentRegion(item, CacheRegionType.WARM);
+        }
+    }
+
+    /**
+     * TinyLFU: a candidate that does not fit in COLD any more has to be used more often than the entry it
+     * pushes out. Ties go to the resident entry.
+     */
+    private boolean admit(CacheItem<T> candidate) {
+        CacheRegion<T> cold = regions.get(CacheRegionType.COLD);
+        CacheItem<T> victim = cold.first();
+        if (victim == null || cold.weight() + candidate.weight <= coldRegionSize) {
+            return true;
+        }
+        return sketch.frequency(hash(candidate.getKey())) > sketch.frequency(hash(victim.getKey()));
+    }
+
+    private void recordAccess(Object key) {
+        if (sketch != null) {
+            sketch.increment(hash(key));
+        }
+    }
+
+    private static int hash(Object key) {
+        return CacheKey.spread(key.hashCode());
+    }
+
+    @Override
+    public int expireEntries() {
+        if (timerWheel == null) {
+            return 0;
+        }
+        int expired = execute(() -> {
+            regionLock.lock();
+            try {
+                return timerWheel.advance(ticker.read(), item -> evict(item, RemovalCause.EXPIRED));
+            } finally {
+                regionLock.unlock();
             }
+        });
+        if (expired > 0) {
+            valueStorage.maintain();
+            logger.debug("Node : {} , expired {} entries", index, expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Crawls the whole region in slices, the lock is released between them.
+     */
+    public EvictionInfo removeItems(CacheRegionType region) {
+        EvictionInfo info;
+        do {
+            info = crawl(region, REMOVE_SLICE_ENTRIES, REMOVE_SLICE_MICROS);
+        } while (!info.isDone());
+        return info;
+    }
+
+    @Override
+    public EvictionInfo crawl(CacheRegionType region, int maxEntries, long maxMicros) {
+        List<CacheItem<T>> refreshes = new ArrayList<>();
+        EvictionInfo info = execute(() -> applyCrawl(region, maxEntries, maxMicros, refreshes));
+        drainSpills();
+        refreshes.forEach(this::refresh);
+        return info;
+    }
+
+    /**
+     * Reports the earliest expiration time left in the region once the pass is done, so the crawler knows when
+     * to come back. Entries due for a refresh are added to refreshes, the loaders are started by the caller
+     * once the lock is released.
+     */
+    private EvictionInfo applyCrawl(CacheRegionType region, int maxEntries, long maxMicros, List<CacheItem<T>> refreshes) {
+        CacheRegion<T> cacheRegion = regions.get(region);
+        long now = ticker.read();
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(Math.min(maxMicros, Long.MAX_VALUE / 2000));
+        boolean done = false;
+        int scanned = 0;
+        long removed = 0;
+        TimeStampBasedEvictionInfo info = new TimeStampBasedEvictionInfo();
+        regionLock.lock();
+        try {
+            if (!cacheRegion.isCrawling()) {
+                cacheRegion.startCrawl(now + TimeUnit.SECONDS.toNanos(ttl));
+            }
+            while (scanned < maxEntries) {
+                if ((scanned & 15) == 15 && System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+                CacheItem<T> item = cacheRegion.nextToCrawl();
+                if (item == null) {
+                    done = true;
+                    break;
+                }
+                scanned++;
+                long expiresAt = item.expiresAt;
+                if (expiresAt - now <= 0) {
+                    evict(item, RemovalCause.EXPIRED);
+                    removed++;
+                    continue;
+                }
+                if (refreshAfterNanos > 0 && item.refresher != null && CacheRegionType.WARM.equals(region)) {
+                    if (item.isActive() && isRefreshDue(item, now)) {
+                        refreshes.add(item);
+                    } else if (item.writeTime + refreshAfterNanos - expiresAt < 0) {
+                        expiresAt = item.writeTime + refreshAfterNanos;
+                    }
+                }
+                if (expiresAt - cacheRegion.crawlEarliestExpiry < 0) {
+                    cacheRegion.crawlEarliestExpiry = expiresAt;
+                }
+            }
+            cacheRegion.crawlRemoved += removed;
+            if (done) {
+                cacheRegion.endCrawl();
+            }
+            info.setNextExpiration(cacheRegion.crawlEarliestExpiry);
+            info.setScanned(cacheRegion.crawlScanned);
+            info.setRemoved(cacheRegion.crawlRemoved);
+            info.setDone(done);
+        } finally {
+            regionLock.unlock();
+        }
+        if (removed > 0) {
+            valueStorage.maintain();
+        }
+        return info;
+    }
+
+    private <R> R execute(Supplier<R> task) {
+        if (writer == null || writer.isWriterThread()) {
+            return task.get();
+        }
+        return writer.submit(task).join();
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<R> task) {
+        if (writer == null) {
+            return CompletableFuture.completedFuture(task.get());
+        }
+        return writer.submit(task);
+    }
+
+    private void runMaintenance() {
+        deferMaintenance = false;
+        ensureHotRegionSize();
+        ensureWarmRegionSize();
+        ensureColdRegionSize();
+        deferMaintenance = true;
+        drainSpills();
+    }
+
+    public void shutdown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+        if (diskTier != null) {
+            diskTier.close();
         }
-        return null;
     }
 
     private void ensureRegionSize(CacheRegionType region) {
+        if (deferMaintenance) {
+            return;
+        }
         switch (region) {
             case HOT -> ensureHotRegionSize();
             case WARM -> ensureWarmRegionSize();
@@ -230,51 +1382,93 @@ public class CacheNode<T> implements Cache<String, T>, Crawlable {
 
     private void ensureHotRegionSize() {
 
-        CacheRegion cacheRegion = regions.get(CacheRegionType.HOT);
-        while (cacheRegion.counter.getSize() > hotRegionSize) {
-            String key = cacheRegion.region.iterator().next();
-            transferFromHotCache(key);
+        CacheRegion<T> cacheRegion = regions.get(CacheRegionType.HOT);
+        while (cacheRegion.weight() > hotRegionSize) {
+            transferFromHotCache(cacheRegion.first());
         }
     }
 
     private void ensureWarmRegionSize() {
-        CacheRegion cacheRegion = regions.get(CacheRegionType.WARM);
-        while (cacheRegion.counter.getSize() > warmRegionSize) {
-            String key = cacheRegion.region.iterator().next();
-            addKeyToDifferentRegion(key, CacheRegionType.COLD, localCache.get(key));
+        CacheRegion<T> cacheRegion = regions.get(CacheRegionType.WARM);
+        while (cacheRegion.weight() > warmRegionSize) {
+            addItemToDifferentRegion(cacheRegion.first(), CacheRegionType.COLD);
         }
     }
 
     private void ensureColdRegionSize() {
 
-        CacheRegion cacheRegion = regions.get(CacheRegionType.COLD);
-        while (cacheRegion.counter.getSize() > coldRegionSize) {
-            String key = cacheRegion.region.iterator().next();
-            remove(key);
+        CacheRegion<T> cacheRegion = regions.get(CacheRegionType.COLD);
+        while (cacheRegion.weight() > coldRegionSize) {
+            evictForCapacity(cacheRegion.first());
         }
     }
 
     public void printCacheState() {
-        logger.debug("Node filledCapacity {}, hot size: {}, warm size: {} , cold size: {}", filledCapacity, regions.get(CacheRegionType.HOT).counter.getSize(), regions.get(CacheRegionType.WARM).counter.getSize(), regions.get(CacheRegionType.COLD).counter.getSize());
-        logger.debug("Node : {} , Hot Cache State: {} ", index, localHotCache.keySet());
-        logger.debug("Node : {} , Cache State: {} ", index, localCache.keySet());
-        logger.debug("Node : {} , Hot Region: {}", index, regions.get(CacheRegionType.HOT));
-        logger.debug("Node : {} , Warm Region: {}", index, regions.get(CacheRegionType.WARM));
-        logger.debug("Node : {} , Cold Region: {}", index, regions.get(CacheRegionType.COLD));
+        execute(() -> {
+            applyPrintCacheState();
+            return null;
+        });
+    }
+
+    private void applyPrintCacheState() {
+        regionLock.lock();
+        try {
+            logger.debug("Node filledCapacity {}, weightedSize {}, hot size: {}, warm size: {} , cold size: {}", filledCapacity, weightedSize, regions.get(CacheRegionType.HOT).size(), regions.get(CacheRegionType.WARM).size(), regions.get(CacheRegionType.COLD).size());
+            logger.debug("Node : {} , Cache State: {} ", index, localCache.keySet());
+            logger.debug("Node : {} , Hot Region: {}", index, regions.get(CacheRegionType.HOT));
+            logger.debug("Node : {} , Warm Region: {}", index, regions.get(CacheRegionType.WARM));
+            logger.debug("Node : {} , Cold Region: {}", index, regions.get(CacheRegionType.COLD));
+        } finally {
+            regionLock.unlock();
+        }
     }
 
     public void checkCacheAndRegion() {
+        execute(() -> {
+            applyCheckCacheAndRegion();
+            return null;
+        });
+    }
 
-        var test1 = localHotCache.keySet().equals(regions.get(CacheRegionType.HOT).region);
-        HashSet<String> set = new HashSet<>(regions.get(CacheRegionType.WARM).region);
-        set.addAll(regions.get(CacheRegionType.COLD).region);
-        var test2 = localCache.keySet().equals(set);
-        var test3 = filledCapacity == (localCache.size() + localHotCache.size());
+    private void applyCheckCacheAndRegion() {
+        regionLock.lock();
+        try {
+            Set<Object> regionKeys = new HashSet<>();
+            boolean[] consistent = {true};
+            regions.forEach((type, region) -> {
+                int[] count = {0};
+                region.forEach(item -> {
+                    count[0]++;
+                    consistent[0] &= type == item.getRegion() && localCache.get(item.getKey()) == item && regionKeys.add(item.getKey());
+                });
+                consistent[0] &= count[0] == region.size();
+            });
+            var test1 = consistent[0];
+            var test2 = localCache.keySet().equals(regionKeys);
+            long[] weight = {0};
+            regions.values().forEach(region -> weight[0] += region.weight());
+            var test3 = filledCapacity == localCache.size() && weightedSize == weight[0];
 
-        if (!test1 || !test2 || !test3) {
-            throw new RuntimeException("Found Bug");
+            if (!test1 || !test2 || !test3) {
+                throw new RuntimeException("Found Bug");
+            }
+        } finally {
+            regionLock.unlock();
         }
 
     }
 
+    private static final class PendingPut<T> {
+        private final CacheItem<T> item;
+        private final boolean added;
+        private final int weight;
+        private final boolean expiresEarlier;
+
+        private PendingPut(CacheItem<T> item, boolean added, int weight, boolean expiresEarlier) {
+            this.item = item;
+            this.added = added;
+            this.weight = weight;
+            this.expiresEarlier = expiresEarlier;
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package org.bytestash.cache;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.bytestash.evictionpolicy.AdmissionPolicy;
+import org.bytestash.evictionpolicy.Expiry;
+import org.bytestash.storage.ValueSerializer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional behaviour of a CacheNode on top of its sizes and ttl.
+ */
+@Getter
+@Builder(setterPrefix = "with", toBuilder = true)
+public class CacheNodeConfig<T> {
+
+    @Builder.Default
+    private final NodeExecutionMode executionMode = NodeExecutionMode.DIRECT;
+
+    /**
+     * Values are kept off heap in slabs when a serializer is set.
+     */
+    private final ValueSerializer<T> valueSerializer;
+
+    /**
+     * Off heap bytes available to one node.
+     */
+    @Builder.Default
+    private final long offHeapCapacity = 64L << 20;
+
+    /**
+     * With a weigher the capacity and the region sizes of the node are weights instead of item counts.
+     */
+    @Builder.Default
+    private final Weigher<Object, ? super T> weigher = Weigher.singleton();
+
+    /**
+     * Buckets entries by expiration time in a timing wheel so {@link CacheNode#expireEntries()} can remove
+     * them without scanning the regions.
+     */
+    private final boolean timerWheel;
+
+    /**
+     * Expiry policy of the node, expire after access with the ttl of the node when not set.
+     */
+    private final Expiry<Object, ? super T> expiry;
+
+    /**
+     * Entries that came from a loader are loaded again in the background once they are older than this, while
+     * readers keep getting the current value. Disabled when not set.
+     */
+    private final Duration refreshAfterWrite;
+
+    /**
+     * With TinyLFU an entry leaving HOT unread only gets into COLD when it is used more often than the oldest
+     * COLD entry, so scans of one-hit keys do not flush the working set.
+     */
+    @Builder.Default
+    private final AdmissionPolicy admissionPolicy = AdmissionPolicy.ALWAYS;
+
+    /**
+     * Moves weight between the regions towards the one whose recently evicted keys are asked for again, each
+     * region staying between minRegionPercent and maxRegionPercent of the capacity.
+     */
+    private final boolean adaptiveSizing;
+
+    @Builder.Default
+    private final float minRegionPercent = 0.05f;
+
+    @Builder.Default
+    private final float maxRegionPercent = 0.8f;
+
+    /**
+     * Directory of the disk tier. When set, entries evicted from COLD are written to a log file of the node in it
+     * and read back into WARM on a miss. Values are written with the value serializer, or java serialization.
+     */
+    private final Path diskTierDirectory;
+
+    /**
+     * Disk bytes available to one node.
+     */
+    @Builder.Default
+    private final long diskTierCapacity = 1L << 30;
+
+    /**
+     * Size of the mapped segments of the disk tier, the largest value it can hold.
+     */
+    @Builder.Default
+    private final int diskSegmentSize = 64 << 20;
+
+    /**
+     * Clock of the write, access and expiration times of the entries.
+     */
+    @Builder.Default
+    private final Ticker ticker = Ticker.cached();
+
+    public static <T> CacheNodeConfig<T> defaults() {
+        return CacheNodeConfig.<T>builder().build();
+    }
+}
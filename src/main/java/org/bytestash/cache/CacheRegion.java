@@ -1,58 +1,230 @@
 package org.bytestash.cache;
 
-import java.util.LinkedHashSet;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.StringJoiner;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-public class CacheRegion {
-    LinkedHashSet<String> region;
+/**
+ * Intrusive doubly linked list of the items of one region, oldest item first. Linking and unlinking are
+ * O(1) and allocation free, all mutations happen under the lock of the owning CacheNode. Besides the item
+ * count the region keeps the total weight of its items.
+ * <p>
+ * A walk over the region keeps its position with a sentinel item linked into the list, like the crawler items
+ * of memcached, so entries can be added, moved and removed between two slices of the walk. The incremental
+ * crawl is one such walk, several can be open at the same time.
+ */
+public class CacheRegion<T> {
+    private CacheItem<T> head;
 
-    ConcurrentHashMap<String, Boolean> regionLocks;
+    private CacheItem<T> tail;
 
-    int regionMaxSize;
+    long regionMaxSize;
 
     ConcurrentSizeCounter counter;
 
-    public CacheRegion(int regionSize) {
+    private volatile long weight;
+
+    private final Cursor<T> crawlCursor = new Cursor<>();
+
+    long crawlScanned;
+
+    long crawlRemoved;
+
+    long crawlEarliestExpiry;
+
+    public CacheRegion(long regionSize) {
         this.regionMaxSize = regionSize;
-        this.regionLocks = new ConcurrentHashMap<>();
-        this.region = new LinkedHashSet<>();
         counter = new ConcurrentSizeCounter();
     }
 
     @Override
     public String toString() {
-        return "CacheRegion{" + "region=" + region + ", regionLocks=" + regionLocks + ", counter=" + counter + '}';
+        StringJoiner keys = new StringJoiner(", ", "[", "]");
+        forEach(item -> keys.add(String.valueOf(item.getKey())));
+        return "CacheRegion{" + "region=" + keys + ", counter=" + counter.getSize() + ", weight=" + weight + '}';
     }
 
-    public void add(String key) {
-        regionLocks.put(key, false);
-        region.add(key);
+    void add(CacheItem<T> item) {
+        linkLast(item);
         counter.increment();
+        weight += item.weight;
+    }
+
+    void remove(CacheItem<T> item) {
+        if (!contains(item)) {
+            return;
+        }
+        unlink(item);
+        counter.decrement();
+        weight -= item.weight;
+    }
+
+    private void linkLast(CacheItem<T> item) {
+        item.prev = tail;
+        item.next = null;
+        if (tail == null) {
+            head = item;
+        } else {
+            tail.next = item;
+        }
+        tail = item;
+    }
+
+    private void linkAfter(CacheItem<T> item, CacheItem<T> previous) {
+        item.prev = previous;
+        item.next = previous.next;
+        if (previous.next == null) {
+            tail = item;
+        } else {
+            previous.next.prev = item;
+        }
+        previous.next = item;
+    }
+
+    private void linkFirst(CacheItem<T> item) {
+        item.prev = null;
+        item.next = head;
+        if (head == null) {
+            tail = item;
+        } else {
+            head.prev = item;
+        }
+        head = item;
+    }
+
+    private void unlink(CacheItem<T> item) {
+        if (item.prev == null) {
+            head = item.next;
+        } else {
+            item.prev.next = item.next;
+        }
+        if (item.next == null) {
+            tail = item.prev;
+        } else {
+            item.next.prev = item.prev;
+        }
+        item.prev = null;
+        item.next = null;
+    }
+
+    boolean isCrawling() {
+        return crawlCursor.isOpen();
+    }
+
+    /**
+     * Opens the crawl cursor before the oldest item.
+     */
+    void startCrawl(long earliestExpiry) {
+        open(crawlCursor);
+        crawlScanned = 0;
+        crawlRemoved = 0;
+        crawlEarliestExpiry = earliestExpiry;
+    }
+
+    /**
+     * Moves the crawl cursor past the next item and returns it, null once the pass is over.
+     */
+    CacheItem<T> nextToCrawl() {
+        CacheItem<T> item = advance(crawlCursor);
+        if (item != null) {
+            crawlScanned++;
+        }
+        return item;
+    }
+
+    void endCrawl() {
+        close(crawlCursor);
+    }
+
+    /**
+     * Links the cursor before the oldest item. The walk visits at most the items the region has now, items
+     * appended while it runs are left out.
+     */
+    void open(Cursor<T> cursor) {
+        linkFirst(cursor.sentinel);
+        cursor.open = true;
+        cursor.remaining = size();
+    }
+
+    /**
+     * Moves the cursor past the next item and returns it, null once the walk is over.
+     */
+    CacheItem<T> advance(Cursor<T> cursor) {
+        CacheItem<T> item = skipSentinels(cursor.sentinel.next);
+        if (item == null || cursor.remaining <= 0) {
+            return null;
+        }
+        unlink(cursor.sentinel);
+        linkAfter(cursor.sentinel, item);
+        cursor.remaining--;
+        return item;
+    }
+
+    void close(Cursor<T> cursor) {
+        if (cursor.open) {
+            unlink(cursor.sentinel);
+            cursor.open = false;
+        }
     }
 
-    public void remove(String key) {
-        if (contains(key)) {
-            obtainLock(key);
-            region.remove(key);
-            regionLocks.remove(key);
-            counter.decrement();
+    void reweigh(CacheItem<T> item, int newWeight) {
+        if (contains(item)) {
+            weight += newWeight - item.weight;
         }
+        item.weight = newWeight;
     }
 
-    private void obtainLock(String key) {
-        while (regionLocks.get(key) == Boolean.TRUE) ;
-        regionLocks.put(key, true);
+    boolean contains(CacheItem<T> item) {
+        return item.prev != null || head == item;
     }
 
-    private void releaseLock(String key) {
-        regionLocks.put(key, false);
+    CacheItem<T> first() {
+        return skipSentinels(head);
     }
 
-    public boolean contains(String key) {
-        return regionLocks.containsKey(key);
+    /**
+     * Item after the given one, skipping the cursors.
+     */
+    CacheItem<T> next(CacheItem<T> item) {
+        return skipSentinels(item.next);
+    }
+
+    private static <T> CacheItem<T> skipSentinels(CacheItem<T> item) {
+        while (item != null && item.getKey() == null) {
+            item = item.next;
+        }
+        return item;
     }
 
+    void forEach(Consumer<CacheItem<T>> action) {
+        for (CacheItem<T> item = first(); item != null; item = next(item)) {
+            action.accept(item);
+        }
+    }
+
+    public int size() {
+        return counter.getSize();
+    }
+
+    public long weight() {
+        return weight;
+    }
+
+
+    /**
+     * Position of a walk over a region.
+     */
+    static final class Cursor<T> {
+        private final CacheItem<T> sentinel = new CacheItem<>(null, null, null, -1);
+
+        private long remaining;
+
+        private boolean open;
+
+        boolean isOpen() {
+            return open;
+        }
+    }
 
     public static class ConcurrentSizeCounter {
         private final AtomicInteger size;
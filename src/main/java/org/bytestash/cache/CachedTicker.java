@@ -0,0 +1,33 @@
+package org.bytestash.cache;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coarse clock in the style of the current_time of memcached, one daemon thread updates it every millisecond.
+ */
+final class CachedTicker implements Ticker {
+
+    static final CachedTicker INSTANCE = new CachedTicker();
+
+    private static final long RESOLUTION_NANOS = 1_000_000L;
+
+    private volatile long now = System.nanoTime();
+
+    private CachedTicker() {
+        Thread thread = new Thread(this::run, "bytestash-clock");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        while (true) {
+            LockSupport.parkNanos(RESOLUTION_NANOS);
+            now = System.nanoTime();
+        }
+    }
+
+    @Override
+    public long read() {
+        return now;
+    }
+}
@@ -5,9 +5,27 @@ import org.bytestash.evictionpolicy.EvictionInfo;
 public interface Crawlable {
     EvictionInfo removeItems(CacheRegionType region);
 
+    /**
+     * Continues the crawl of the region where the previous slice stopped, visiting at most maxEntries entries
+     * or spending about maxMicros microseconds. The returned info is done when the pass reached the end of the
+     * region, the next call then starts a new pass.
+     */
+    EvictionInfo crawl(CacheRegionType region, int maxEntries, long maxMicros);
+
+    /**
+     * Removes the entries whose expiration time has passed without scanning the regions, returns the number
+     * of removed entries. Only crawlables that bucket their entries by expiration time support it.
+     */
+    int expireEntries();
+
     void printCacheState();
 
     long getTtl();
 
     long getFilledCapacity();
+
+    /**
+     * Clock the expiration times reported in the eviction info are read from.
+     */
+    Ticker getTicker();
 }
@@ -0,0 +1,126 @@
+package org.bytestash.cache;
+
+import org.bytestash.storage.SegmentLog;
+import org.bytestash.storage.ValueSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Second tier of a node on local disk, entries evicted from COLD are written to it and read back on a miss.
+ * Compaction runs whenever the log has a mostly dead segment, on a compaction thread shared by the tiers of
+ * the process so its I/O does not hold up the crawler pool.
+ */
+class DiskTier<T> {
+    private static final Logger logger = LoggerFactory.getLogger(DiskTier.class);
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final SegmentLog<Object> log;
+    private final ValueSerializer<T> serializer;
+    private final Ticker ticker;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    DiskTier(Path directory, int index, long capacity, int segmentSize, ValueSerializer<T> serializer, Ticker ticker) {
+        this.serializer = serializer;
+        this.ticker = ticker;
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "node-" + index + "-", ".log");
+            this.log = new SegmentLog<>(file, capacity, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create the disk tier in " + directory, e);
+        }
+    }
+
+    /**
+     * Returns false when the value could not be written, it is then dropped like without the tier.
+     */
+    boolean spill(Object key, T value, long expiresAt) {
+        try {
+            if (!log.put(key, serializer.serialize(value), expiresAt)) {
+                return false;
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to spill {} to disk with error : {}", key, e, e);
+            return false;
+        }
+        if (log.needsCompaction()) {
+            scheduleCompaction();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the entry from the tier and returns its value with its expiration time, null when it is not
+     * there or expired.
+     */
+    SegmentLog.Record take(Object key) {
+        SegmentLog.Record record = log.take(key);
+        if (record == null || record.getExpiresAt() - ticker.read() <= 0) {
+            return null;
+        }
+        return record;
+    }
+
+    T value(SegmentLog.Record record) {
+        return serializer.deserialize(ByteBuffer.wrap(record.getValue()));
+    }
+
+    void remove(Object key) {
+        log.remove(key);
+    }
+
+    List<Object> keys() {
+        return log.keys();
+    }
+
+    int size() {
+        return log.size();
+    }
+
+    private void scheduleCompaction() {
+        if (compacting.compareAndSet(false, true)) {
+            CompactorHolder.COMPACTOR.execute(() -> {
+                try {
+                    int compacted = log.compact(ticker.read());
+                    logger.debug("Compacted {} segments of the disk tier", compacted);
+                } catch (IOException e) {
+                    logger.debug("Compaction of the disk tier failed with error : {}", e, e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    void close() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close the disk tier with error : {}", e, e);
+        }
+    }
+
+    private static final class CompactorHolder {
+        static final ThreadPoolExecutor COMPACTOR = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "bytestash-disk-compactor");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        static {
+            COMPACTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.bytestash.cache;
+
+/**
+ * Hashes of the most recently evicted keys of a region, as in the ghost lists of ARC. A ring keeps them in
+ * eviction order and an open addressing table with linear probing finds them, both preallocated, so
+ * recording an eviction allocates nothing. Guarded by the lock of the owning node.
+ */
+class GhostList {
+    private static final int EMPTY = 0;
+
+    private final int[] ring;
+
+    private final int[] keys;
+
+    private final int[] slots;
+
+    private final int mask;
+
+    private int next;
+
+    GhostList(int capacity) {
+        ring = new int[Math.max(capacity, 1)];
+        int tableSize = Integer.highestOneBit(ring.length * 2 - 1) << 1;
+        keys = new int[tableSize];
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    void add(int hash) {
+        hash = nonEmpty(hash);
+        if (indexOf(hash) >= 0) {
+            return;
+        }
+        int oldest = ring[next];
+        if (oldest != EMPTY) {
+            delete(indexOf(oldest));
+        }
+        ring[next] = hash;
+        int index = hash & mask;
+        while (keys[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = hash;
+        slots[index] = next;
+        next = next + 1 == ring.length ? 0 : next + 1;
+    }
+
+    /**
+     * Removes the hash and returns whether it was a ghost.
+     */
+    boolean remove(int hash) {
+        int index = indexOf(nonEmpty(hash));
+        if (index < 0) {
+            return false;
+        }
+        ring[slots[index]] = EMPTY;
+        delete(index);
+        return true;
+    }
+
+    private int indexOf(int hash) {
+        int index = hash & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == hash) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Backward shift deletion, keeps the probe sequences intact without tombstones.
+     */
+    private void delete(int index) {
+        int hole = index;
+        int current = index;
+        while (true) {
+            current = (current + 1) & mask;
+            int key = keys[current];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = key & mask;
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                keys[hole] = key;
+                slots[hole] = slots[current];
+                hole = current;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private static int nonEmpty(int hash) {
+        return hash == EMPTY ? 1 : hash;
+    }
+}
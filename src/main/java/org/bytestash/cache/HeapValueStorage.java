@@ -0,0 +1,19 @@
+package org.bytestash.cache;
+
+class HeapValueStorage<T> implements ValueStorage<T> {
+
+    @Override
+    public boolean store(CacheItem<T> item, T value) {
+        item.setValue(value);
+        return true;
+    }
+
+    @Override
+    public T load(CacheItem<T> item) {
+        return item.getValue();
+    }
+
+    @Override
+    public void release(CacheItem<T> item) {
+    }
+}
@@ -0,0 +1,523 @@
+package org.bytestash.cache;
+
+import lombok.Getter;
+import org.bytestash.evictionpolicy.EvictionInfo;
+import org.bytestash.evictionpolicy.TimeStampBasedEvictionInfo;
+import org.bytestash.stats.NodeStats;
+import org.bytestash.stats.RemovalCause;
+import org.bytestash.stats.StatsSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * CacheNode for primitive long keys without a key object or an item object per entry. Entries are slots of
+ * parallel arrays, found through an open addressing table of slot numbers and linked in their region through
+ * int indexes. The HOT, WARM and COLD regions, the expiry after access with the ttl of the node and the
+ * incremental crawl behave like in {@link CacheNode}, capacities are entry counts.
+ * <p>
+ * Writes and crawls take the node lock. Reads first look the entry up under an optimistic stamp and only take
+ * the lock when the read has to move, refresh or expire the entry, so repeated reads of a hot key do not
+ * serialize.
+ */
+public class LongKeyCacheNode<V> implements Crawlable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LongKeyCacheNode.class);
+    private static final int NIL = -1;
+    private static final byte FREE = -1;
+    private static final byte ACTIVE = 1;
+    private static final byte FIXED_EXPIRY = 2;
+    private static final long NO_TTL = -1L;
+    private static final int REMOVE_SLICE_ENTRIES = 1024;
+    private static final long REMOVE_SLICE_MICROS = 1000;
+    private static final int HOT = CacheRegionType.HOT.ordinal();
+    private static final int WARM = CacheRegionType.WARM.ordinal();
+    private static final int COLD = CacheRegionType.COLD.ordinal();
+    private static final int REGIONS = CacheRegionType.values().length;
+    private static final Object LOCK_NEEDED = new Object();
+
+    @Getter
+    private final long capacity;
+
+    private final int ttl;
+
+    private final long ttlNanos;
+
+    @Getter
+    private final Ticker ticker;
+
+    @Getter
+    private final int index;
+
+    private final long[] keys;
+
+    private final Object[] values;
+
+    private final long[] expiresAt;
+
+    private final int[] prev;
+
+    private final int[] next;
+
+    private final byte[] regionOf;
+
+    private final byte[] flags;
+
+    /**
+     * Open addressing table with linear probing, holding slot + 1 and 0 for an empty bucket.
+     */
+    private final int[] table;
+
+    private final int mask;
+
+    private final int[] head = new int[REGIONS];
+
+    private final int[] tail = new int[REGIONS];
+
+    private final int[] sizes = new int[REGIONS];
+
+    private final long[] regionLimits = new long[REGIONS];
+
+    private final int[] crawlCursor = new int[REGIONS];
+
+    private final boolean[] crawling = new boolean[REGIONS];
+
+    private final long[] crawlScanned = new long[REGIONS];
+
+    private final long[] crawlRemoved = new long[REGIONS];
+
+    private final long[] crawlEarliestExpiry = new long[REGIONS];
+
+    /**
+     * Entries left in the pass, the region size when it started, so entries moved behind the cursor meanwhile
+     * do not keep the pass going.
+     */
+    private final long[] crawlRemaining = new long[REGIONS];
+
+    private int freeHead;
+
+    private volatile long filledCapacity;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final NodeStats stats = new NodeStats();
+
+    public LongKeyCacheNode(int capacity, float hotPercent, float warmPercent, int ttl, int index) {
+        this(capacity, hotPercent, warmPercent, ttl, index, Ticker.cached());
+    }
+
+    public LongKeyCacheNode(int capacity, float hotPercent, float warmPercent, int ttl, int index, Ticker ticker) {
+        if (capacity <= 0 || capacity >= 1 << 29) {
+            throw new IllegalArgumentException("Capacity of a LongKeyCacheNode has to be between 1 and 2^29: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ttl = ttl;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttl);
+        this.ticker = ticker;
+        this.index = index;
+        if (hotPercent == 0f || warmPercent == 0f || hotPercent + warmPercent > 0.5) {
+            hotPercent = 0.1f;
+            warmPercent = 0.2f;
+        }
+        regionLimits[HOT] = (long) (capacity * hotPercent);
+        regionLimits[WARM] = (long) (capacity * warmPercent);
+        regionLimits[COLD] = (long) (capacity * (1 - hotPercent - warmPercent));
+        int slots = capacity + 1;
+        keys = new long[slots];
+        values = new Object[slots];
+        expiresAt = new long[slots];
+        prev = new int[slots];
+        next = new int[slots];
+        regionOf = new byte[slots];
+        flags = new byte[slots];
+        for (int i = 0; i < slots; i++) {
+            next[i] = i + 1 < slots ? i + 1 : NIL;
+            regionOf[i] = FREE;
+        }
+        freeHead = 0;
+        table = new int[Integer.highestOneBit(slots * 2 - 1) << 1];
+        mask = table.length - 1;
+        for (int r = 0; r < REGIONS; r++) {
+            head[r] = NIL;
+            tail[r] = NIL;
+            crawlCursor[r] = NIL;
+        }
+    }
+
+    /**
+     * Mixes all the bits of the key, the node table uses the low half and the router the high half.
+     */
+    public static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long start = stats.startTimer();
+        Object value = tryOptimisticGet(key);
+        if (value == LOCK_NEEDED) {
+            long stamp = lock.writeLock();
+            try {
+                value = applyGet(key);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        stats.recordGet(value != null, start);
+        return (V) value;
+    }
+
+    /**
+     * A miss, or a hit on an entry that the read would leave as it is, needs no lock: an active entry in HOT or
+     * the most recent one of WARM whose expiration is already set from this tick. Returns LOCK_NEEDED when the
+     * stamp was invalidated or the entry has to change.
+     */
+    private Object tryOptimisticGet(long key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp == 0) {
+            return LOCK_NEEDED;
+        }
+        long now = ticker.read();
+        int entry = find(key);
+        Object value = null;
+        boolean unchanged = true;
+        if (entry != NIL) {
+            value = values[entry];
+            byte entryFlags = flags[entry];
+            long expires = expiresAt[entry];
+            unchanged = expires - now > 0 && (entryFlags & ACTIVE) != 0 && (regionOf[entry] == HOT || tail[WARM] == entry)
+                                && ((entryFlags & FIXED_EXPIRY) != 0 || expires == now + ttlNanos);
+        }
+        return unchanged && lock.validate(stamp) ? value : LOCK_NEEDED;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V applyGet(long key) {
+        int entry = find(key);
+        if (entry == NIL) {
+            return null;
+        }
+        long now = ticker.read();
+        if (expiresAt[entry] - now <= 0) {
+            removeEntry(entry, RemovalCause.EXPIRED);
+            return null;
+        }
+        flags[entry] |= ACTIVE;
+        if (regionOf[entry] != HOT) {
+            moveTo(entry, WARM);
+        }
+        if ((flags[entry] & FIXED_EXPIRY) == 0) {
+            expiresAt[entry] = now + ttlNanos;
+        }
+        return (V) values[entry];
+    }
+
+    public void put(long key, V value) {
+        put(key, value, NO_TTL);
+    }
+
+    /**
+     * Writes the entry with its own time to live, reads do not extend it.
+     */
+    public void put(long key, V value, Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Time to live has to be positive: " + ttl);
+        }
+        put(key, value, ttl.toNanos());
+    }
+
+    private void put(long key, V value, long entryTtlNanos) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        long start = stats.startTimer();
+        long stamp = lock.writeLock();
+        try {
+            applyPut(key, value, entryTtlNanos);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        stats.recordPut(start);
+    }
+
+    private void applyPut(long key, V value, long entryTtlNanos) {
+        long now = ticker.read();
+        int entry = find(key);
+        if (entry == NIL) {
+            entry = allocate();
+            keys[entry] = key;
+            values[entry] = value;
+            flags[entry] = 0;
+            insert(key, entry);
+            link(HOT, entry);
+            filledCapacity++;
+        } else {
+            values[entry] = value;
+            flags[entry] = (byte) (flags[entry] & ~FIXED_EXPIRY | ACTIVE);
+            if (regionOf[entry] == COLD) {
+                moveTo(entry, WARM);
+            }
+        }
+        if (entryTtlNanos != NO_TTL) {
+            flags[entry] |= FIXED_EXPIRY;
+            expiresAt[entry] = now + entryTtlNanos;
+        } else {
+            expiresAt[entry] = now + ttlNanos;
+        }
+        ensureRegionSizes();
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            int entry = find(key);
+            if (entry == NIL) {
+                return null;
+            }
+            V value = (V) values[entry];
+            removeEntry(entry, RemovalCause.EXPLICIT);
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private int allocate() {
+        if (freeHead == NIL) {
+            for (int r = 0; r < REGIONS && freeHead == NIL; r++) {
+                if (head[r] != NIL) {
+                    removeEntry(head[COLD] != NIL ? head[COLD] : head[r], RemovalCause.SIZE);
+                }
+            }
+        }
+        int entry = freeHead;
+        freeHead = next[entry];
+        return entry;
+    }
+
+    private void removeEntry(int entry, RemovalCause cause) {
+        unlink(entry);
+        delete(keys[entry]);
+        values[entry] = null;
+        regionOf[entry] = FREE;
+        next[entry] = freeHead;
+        freeHead = entry;
+        filledCapacity--;
+        stats.recordRemoval(cause);
+    }
+
+    /**
+     * Unread HOT entries go to COLD and read ones to WARM, WARM overflows into COLD and COLD evicts its oldest.
+     */
+    private void ensureRegionSizes() {
+        while (sizes[HOT] > regionLimits[HOT]) {
+            int entry = head[HOT];
+            moveTo(entry, (flags[entry] & ACTIVE) != 0 ? WARM : COLD);
+        }
+        while (sizes[WARM] > regionLimits[WARM]) {
+            moveTo(head[WARM], COLD);
+        }
+        while (sizes[COLD] > regionLimits[COLD]) {
+            removeEntry(head[COLD], RemovalCause.SIZE);
+        }
+    }
+
+    private void moveTo(int entry, int region) {
+        int from = regionOf[entry];
+        unlink(entry);
+        link(region, entry);
+        if (region == COLD) {
+            stats.recordDemotion();
+        } else if (region == WARM && from != WARM) {
+            stats.recordPromotion();
+        }
+    }
+
+    private void link(int region, int entry) {
+        prev[entry] = tail[region];
+        next[entry] = NIL;
+        if (tail[region] == NIL) {
+            head[region] = entry;
+        } else {
+            next[tail[region]] = entry;
+        }
+        tail[region] = entry;
+        regionOf[entry] = (byte) region;
+        sizes[region]++;
+    }
+
+    /**
+     * A crawl positioned on the entry continues with the one after it.
+     */
+    private void unlink(int entry) {
+        int region = regionOf[entry];
+        if (crawlCursor[region] == entry) {
+            crawlCursor[region] = next[entry];
+        }
+        int before = prev[entry];
+        int after = next[entry];
+        if (before == NIL) {
+            head[region] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail[region] = before;
+        } else {
+            prev[after] = before;
+        }
+        sizes[region]--;
+    }
+
+    private int bucketOf(long key) {
+        return (int) mix(key) & mask;
+    }
+
+    /**
+     * Probes at most the whole table, an optimistic read can see it while entries are shifted.
+     */
+    private int find(long key) {
+        int bucket = bucketOf(key);
+        for (int probes = 0; probes < table.length; probes++, bucket = (bucket + 1) & mask) {
+            int entry = table[bucket] - 1;
+            if (entry < 0) {
+                return NIL;
+            }
+            if (keys[entry] == key) {
+                return entry;
+            }
+        }
+        return NIL;
+    }
+
+    private void insert(long key, int entry) {
+        int bucket = bucketOf(key);
+        while (table[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        table[bucket] = entry + 1;
+    }
+
+    /**
+     * Backward shift deletion, the entries after the freed bucket move back when it lies between their home
+     * bucket and their bucket, so lookups never need tombstones.
+     */
+    private void delete(long key) {
+        int hole = bucketOf(key);
+        while (keys[table[hole] - 1] != key) {
+            hole = (hole + 1) & mask;
+        }
+        for (int bucket = (hole + 1) & mask; table[bucket] != 0; bucket = (bucket + 1) & mask) {
+            int home = bucketOf(keys[table[bucket] - 1]);
+            if (((bucket - home) & mask) >= ((bucket - hole) & mask)) {
+                table[hole] = table[bucket];
+                hole = bucket;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    public int size(CacheRegionType region) {
+        return sizes[region.ordinal()];
+    }
+
+    public StatsSnapshot getStats() {
+        return stats.snapshot(filledCapacity, filledCapacity);
+    }
+
+    @Override
+    public EvictionInfo removeItems(CacheRegionType region) {
+        EvictionInfo info;
+        do {
+            info = crawl(region, REMOVE_SLICE_ENTRIES, REMOVE_SLICE_MICROS);
+        } while (!info.isDone());
+        return info;
+    }
+
+    @Override
+    public EvictionInfo crawl(CacheRegionType region, int maxEntries, long maxMicros) {
+        int r = region.ordinal();
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(Math.min(maxMicros, Long.MAX_VALUE / 2000));
+        TimeStampBasedEvictionInfo info = new TimeStampBasedEvictionInfo();
+        long stamp = lock.writeLock();
+        try {
+            long now = ticker.read();
+            if (!crawling[r]) {
+                crawling[r] = true;
+                crawlCursor[r] = head[r];
+                crawlScanned[r] = 0;
+                crawlRemoved[r] = 0;
+                crawlEarliestExpiry[r] = now + ttlNanos;
+                crawlRemaining[r] = sizes[r];
+            }
+            boolean done = false;
+            int scanned = 0;
+            while (scanned < maxEntries) {
+                if ((scanned & 15) == 15 && System.nanoTime() - deadline >= 0) {
+                    break;
+                }
+                int entry = crawlCursor[r];
+                if (entry == NIL || crawlRemaining[r] <= 0) {
+                    done = true;
+                    break;
+                }
+                crawlCursor[r] = next[entry];
+                crawlRemaining[r]--;
+                scanned++;
+                crawlScanned[r]++;
+                if (expiresAt[entry] - now <= 0) {
+                    removeEntry(entry, RemovalCause.EXPIRED);
+                    crawlRemoved[r]++;
+                } else if (expiresAt[entry] - crawlEarliestExpiry[r] < 0) {
+                    crawlEarliestExpiry[r] = expiresAt[entry];
+                }
+            }
+            if (done) {
+                crawling[r] = false;
+                crawlCursor[r] = NIL;
+            }
+            info.setNextExpiration(crawlEarliestExpiry[r]);
+            info.setScanned(crawlScanned[r]);
+            info.setRemoved(crawlRemoved[r]);
+            info.setDone(done);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return info;
+    }
+
+    @Override
+    public int expireEntries() {
+        return 0;
+    }
+
+    @Override
+    public void printCacheState() {
+        logger.debug("LongKeyCacheNode {} : HOT {}/{}, WARM {}/{}, COLD {}/{}", index, sizes[HOT], regionLimits[HOT],
+                sizes[WARM], regionLimits[WARM], sizes[COLD], regionLimits[COLD]);
+    }
+
+    @Override
+    public long getTtl() {
+        return ttl;
+    }
+
+    @Override
+    public long getFilledCapacity() {
+        return filledCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "LongKeyCacheNode{" + "index=" + index + ", filledCapacity=" + filledCapacity + '}';
+    }
+}
@@ -0,0 +1,43 @@
+package org.bytestash.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Used for the region lock of a node in single writer mode, where only the writer thread touches the regions.
+ */
+class NoOpLock implements Lock {
+
+    static final NoOpLock INSTANCE = new NoOpLock();
+
+    private NoOpLock() {
+    }
+
+    @Override
+    public void lock() {
+    }
+
+    @Override
+    public void lockInterruptibly() {
+    }
+
+    @Override
+    public boolean tryLock() {
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) {
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+    }
+
+    @Override
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("NoOpLock does not support conditions");
+    }
+}
@@ -0,0 +1,20 @@
+package org.bytestash.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Copy of an entry of a CacheNode as written to a snapshot.
+ */
+@Getter
+@AllArgsConstructor
+public class NodeEntry<T> {
+    private final Object key;
+    private final T value;
+    private final CacheRegionType region;
+    private final long remainingTtlNanos;
+    /**
+     * The entry had its own ttl, the expiry policy does not extend it on reads.
+     */
+    private final boolean fixedExpiry;
+}
@@ -0,0 +1,13 @@
+package org.bytestash.cache;
+
+public enum NodeExecutionMode {
+    /**
+     * Caller threads apply their writes themselves under the lock of the node.
+     */
+    DIRECT,
+    /**
+     * Every node owns one writer thread, writes and region maintenance are queued to it and applied in
+     * batches while reads are served from the map without locking.
+     */
+    SINGLE_WRITER
+}
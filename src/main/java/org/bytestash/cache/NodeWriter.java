@@ -0,0 +1,90 @@
+package org.bytestash.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Writer thread of a node in single writer mode. Any thread may enqueue, only the writer thread dequeues and
+ * runs the tasks, after every batch it runs the maintenance task of the node.
+ */
+class NodeWriter {
+    private static final Logger logger = LoggerFactory.getLogger(NodeWriter.class);
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final Runnable maintenance;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean sleeping;
+
+    NodeWriter(int index, Runnable maintenance) {
+        this.maintenance = maintenance;
+        this.thread = new Thread(this::drain, "bytestash-node-writer-" + index);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    void execute(Runnable task) {
+        queue.offer(task);
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    <R> CompletableFuture<R> submit(Supplier<R> task) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    boolean isWriterThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            int applied = 0;
+            Runnable task;
+            while (applied < MAX_BATCH_SIZE && (task = queue.poll()) != null) {
+                run(task);
+                applied++;
+            }
+            if (applied > 0) {
+                run(maintenance);
+            } else {
+                sleeping = true;
+                if (queue.isEmpty() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            logger.error("Error while applying task on {}", thread.getName(), e);
+        }
+    }
+}
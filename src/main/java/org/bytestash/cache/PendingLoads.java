@@ -0,0 +1,147 @@
+package org.bytestash.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads in flight on one node, concurrent misses on a key share the future of the first one. A load that
+ * found nothing can stay in the table for a while as a negative entry so the backend is not asked again.
+ * Once the table is full the expired negative entries are swept before a new one is refused.
+ */
+class PendingLoads<T> {
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+    private final ConcurrentHashMap<Object, Load<T>> loads = new ConcurrentHashMap<>();
+
+    private final Ticker ticker;
+
+    private volatile long nextSweep;
+
+    PendingLoads(Ticker ticker) {
+        this.ticker = ticker;
+    }
+
+    CompletableFuture<T> load(Object key, Supplier<T> lookup, Supplier<? extends CompletableFuture<? extends T>> loader,
+                              Consumer<T> store, long timeoutNanos, long negativeTtlNanos) {
+        while (true) {
+            Load<T> existing = loads.get(key);
+            if (existing != null) {
+                if (existing.isUsable(ticker.read())) {
+                    return existing.future;
+                }
+                loads.remove(key, existing);
+                continue;
+            }
+            Load<T> load = new Load<>();
+            if (loads.putIfAbsent(key, load) != null) {
+                continue;
+            }
+            T value = lookup.get();
+            if (value != null) {
+                loads.remove(key, load);
+                load.future.complete(value);
+            } else {
+                start(key, load, loader, store, timeoutNanos, negativeTtlNanos);
+            }
+            return load.future;
+        }
+    }
+
+    private void start(Object key, Load<T> load, Supplier<? extends CompletableFuture<? extends T>> loader,
+                       Consumer<T> store, long timeoutNanos, long negativeTtlNanos) {
+        CompletableFuture<T> loading;
+        try {
+            loading = loader.get().thenApply(value -> value);
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        if (timeoutNanos > 0) {
+            loading = loading.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        loading.whenComplete((value, error) -> {
+            if (error == null && value != null) {
+                store.accept(value);
+                loads.remove(key, load);
+                load.future.complete(value);
+            } else if (error == null && negativeTtlNanos > 0 && hasRoomForNegative()) {
+                load.negativeUntil = ticker.read() + negativeTtlNanos;
+                load.negative = true;
+                load.future.complete(null);
+            } else {
+                loads.remove(key, load);
+                if (error != null) {
+                    load.future.completeExceptionally(error);
+                } else {
+                    load.future.complete(null);
+                }
+            }
+        });
+    }
+
+    private boolean hasRoomForNegative() {
+        if (loads.size() <= MAX_NEGATIVE_ENTRIES) {
+            return true;
+        }
+        long now = ticker.read();
+        if (now - nextSweep >= 0) {
+            sweep(now);
+        }
+        return loads.size() <= MAX_NEGATIVE_ENTRIES;
+    }
+
+    /**
+     * Removes the expired negative entries, the next sweep waits for the earliest remaining one to expire.
+     */
+    private synchronized void sweep(long now) {
+        if (now - nextSweep < 0) {
+            return;
+        }
+        long next = now;
+        boolean found = false;
+        for (Map.Entry<Object, Load<T>> entry : loads.entrySet()) {
+            Load<T> load = entry.getValue();
+            if (!load.negative) {
+                continue;
+            }
+            if (!load.isUsable(now)) {
+                loads.remove(entry.getKey(), load);
+            } else if (!found || load.negativeUntil - next < 0) {
+                next = load.negativeUntil;
+                found = true;
+            }
+        }
+        nextSweep = next;
+    }
+
+    /**
+     * Drops a negative entry of the key once a value was written for it.
+     */
+    void invalidate(Object key) {
+        if (!loads.isEmpty()) {
+            Load<T> load = loads.get(key);
+            if (load != null && load.negative) {
+                loads.remove(key, load);
+            }
+        }
+    }
+
+    int size() {
+        return loads.size();
+    }
+
+    private static final class Load<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private volatile boolean negative;
+
+        private volatile long negativeUntil;
+
+        private boolean isUsable(long now) {
+            return !future.isDone() || (negative && negativeUntil - now > 0);
+        }
+    }
+}
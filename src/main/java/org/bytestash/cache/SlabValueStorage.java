@@ -0,0 +1,87 @@
+package org.bytestash.cache;
+
+import org.bytestash.storage.SlabAllocator;
+import org.bytestash.storage.ValueSerializer;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps values serialized in a {@link SlabAllocator}, the item only holds the chunk reference. Values too big
+ * for a slab page stay on heap.
+ */
+class SlabValueStorage<T> implements ValueStorage<T> {
+    private static final long RELEASED = -2L;
+
+    private final SlabAllocator allocator;
+
+    private final ValueSerializer<T> serializer;
+
+    SlabValueStorage(SlabAllocator allocator, ValueSerializer<T> serializer) {
+        this.allocator = allocator;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public boolean store(CacheItem<T> item, T value) {
+        byte[] bytes = serializer.serialize(value);
+        long chunk = SlabAllocator.NO_CHUNK;
+        if (bytes.length <= allocator.getMaxValueSize()) {
+            chunk = allocator.store(bytes);
+            if (chunk == SlabAllocator.NO_CHUNK) {
+                return false;
+            }
+        }
+        long previous;
+        synchronized (item) {
+            previous = item.slabChunk;
+            if (previous == RELEASED) {
+                previous = chunk;
+            } else {
+                item.setValue(chunk == SlabAllocator.NO_CHUNK ? value : null);
+                item.slabChunk = chunk;
+            }
+        }
+        if (previous >= 0) {
+            allocator.free(previous);
+        }
+        return true;
+    }
+
+    @Override
+    public T load(CacheItem<T> item) {
+        while (true) {
+            long chunk = item.slabChunk;
+            if (chunk < 0) {
+                return chunk == RELEASED ? null : item.getValue();
+            }
+            int version = allocator.version(chunk);
+            ByteBuffer view = allocator.view(chunk);
+            byte[] bytes = new byte[view.remaining()];
+            view.get(bytes);
+            VarHandle.acquireFence();
+            // only bytes copied while the chunk kept its version are deserialized, a torn copy is read again
+            if (allocator.version(chunk) == version && item.slabChunk == chunk) {
+                return serializer.deserialize(ByteBuffer.wrap(bytes));
+            }
+        }
+    }
+
+    @Override
+    public void release(CacheItem<T> item) {
+        long chunk;
+        synchronized (item) {
+            chunk = item.slabChunk;
+            item.slabChunk = RELEASED;
+            item.setValue(null);
+        }
+        if (chunk >= 0) {
+            allocator.free(chunk);
+        }
+    }
+
+    @Override
+    public void maintain() {
+        allocator.rebalance();
+    }
+}
@@ -0,0 +1,22 @@
+package org.bytestash.cache;
+
+/**
+ * Source of the monotonic nanosecond time the nodes stamp their entries with.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    long read();
+
+    static Ticker system() {
+        return System::nanoTime;
+    }
+
+    /**
+     * Shared clock refreshed by a background thread, reading it is a volatile load instead of a
+     * {@link System#nanoTime()} call on every get and put. It lags the real time by up to a millisecond.
+     */
+    static Ticker cached() {
+        return CachedTicker.INSTANCE;
+    }
+}
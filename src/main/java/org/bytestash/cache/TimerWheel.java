@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bytestash.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel over the items of a node, in the style of Varghese and Lauck. Items are hashed
+ * into a bucket by their expiration time when written, advancing the wheel only visits the buckets whose
+ * time has passed. Items whose expiration moved later since they were scheduled are put back into the bucket
+ * of their new time. Times are in nanoseconds and all calls happen under the lock of the node.
+ * <p>
+ * Adapted from the TimerWheel of Caffeine (https://github.com/ben-manes/caffeine), the bucket layout, spans
+ * and the expire and findBucket steps follow it. Changed to work on the CacheItem of a node.
+ */
+class TimerWheel<T> {
+
+    static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    static final long[] SPANS = {
+            1L << 30, // 1.07s
+            1L << 36, // 1.14m
+            1L << 42, // 1.22h
+            1L << 47, // 1.63d
+            (1L << 47) * 4, // 6.5d
+            (1L << 47) * 4,
+    };
+
+    static final long[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private final CacheItem<T>[][] wheel;
+
+    private long nanos;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        wheel = new CacheItem[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new CacheItem[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                CacheItem<T> sentinel = new CacheItem<>(null, null, null, -1);
+                sentinel.timerPrev = sentinel;
+                sentinel.timerNext = sentinel;
+                wheel[i][j] = sentinel;
+            }
+        }
+    }
+
+    void schedule(CacheItem<T> item) {
+        CacheItem<T> sentinel = findBucket(item.expiresAt);
+        item.timerNext = sentinel;
+        item.timerPrev = sentinel.timerPrev;
+        sentinel.timerPrev.timerNext = item;
+        sentinel.timerPrev = item;
+    }
+
+    void deschedule(CacheItem<T> item) {
+        if (item.timerNext != null) {
+            item.timerNext.timerPrev = item.timerPrev;
+            item.timerPrev.timerNext = item.timerNext;
+            item.timerNext = null;
+            item.timerPrev = null;
+        }
+    }
+
+    /**
+     * Moves the wheel to the given time and hands every item that expired to the evictor. Returns the
+     * number of expired items.
+     */
+    int advance(long currentTimeNanos, Consumer<CacheItem<T>> evictor) {
+        long previousTimeNanos = nanos;
+        nanos = currentTimeNanos;
+        int expired = 0;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previousTimeNanos >>> SHIFT[i];
+            long currentTicks = currentTimeNanos >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0L) {
+                break;
+            }
+            expired += expire(i, previousTicks, delta, evictor);
+        }
+        return expired;
+    }
+
+    private int expire(int level, long previousTicks, long delta, Consumer<CacheItem<T>> evictor) {
+        CacheItem<T>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+        int expired = 0;
+        for (int i = start; i < end; i++) {
+            CacheItem<T> sentinel = buckets[i & mask];
+            CacheItem<T> item = sentinel.timerNext;
+            sentinel.timerPrev = sentinel;
+            sentinel.timerNext = sentinel;
+            while (item != sentinel) {
+                CacheItem<T> next = item.timerNext;
+                item.timerPrev = null;
+                item.timerNext = null;
+                if (item.expiresAt - nanos <= 0) {
+                    evictor.accept(item);
+                    expired++;
+                } else {
+                    schedule(item);
+                }
+                item = next;
+            }
+        }
+        return expired;
+    }
+
+    private CacheItem<T> findBucket(long time) {
+        long duration = time - nanos;
+        int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = time >>> SHIFT[i];
+                int index = (int) (ticks & (wheel[i].length - 1));
+                return wheel[i][index];
+            }
+        }
+        return wheel[length][0];
+    }
+}
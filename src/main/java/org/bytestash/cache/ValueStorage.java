@@ -0,0 +1,21 @@
+package org.bytestash.cache;
+
+/**
+ * Where the value of an item lives. {@link #store} and {@link #load} are called without the region lock held,
+ * {@link #release} also runs under it when entries are evicted, so it must stay short and never call back into
+ * the node.
+ */
+interface ValueStorage<T> {
+
+    /**
+     * Stores the value for the item, returns false if there is no room for it right now.
+     */
+    boolean store(CacheItem<T> item, T value);
+
+    T load(CacheItem<T> item);
+
+    void release(CacheItem<T> item);
+
+    default void maintain() {
+    }
+}
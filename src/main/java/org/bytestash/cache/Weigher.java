@@ -0,0 +1,15 @@
+package org.bytestash.cache;
+
+/**
+ * Weight of an entry in the unit the node capacity and the region budgets are expressed in, typically bytes.
+ * Weights are computed when a value is written.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    int weigh(K key, V value);
+
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
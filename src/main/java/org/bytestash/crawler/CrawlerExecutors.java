@@ -0,0 +1,69 @@
+package org.bytestash.crawler;
+
+import org.bytestash.util.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors shared by all the crawler managers of the process: one scheduler thread that only decides when
+ * work is due, and one work stealing pool that does the crawling. The pool keeps no thread alive when there
+ * is nothing to crawl and runs at most one crawl per processor. A crawl waiting for a node lock keeps its
+ * worker, the pool only adds threads beyond that for {@link ForkJoinPool.ManagedBlocker} waits, up to
+ * {@link #MAX_POOL_SIZE}. Blocking I/O does not belong on it.
+ */
+public final class CrawlerExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlerExecutors.class);
+    private static final int MAX_POOL_SIZE = 256;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private CrawlerExecutors() {
+
+    }
+
+    public static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    public static ForkJoinPool forkJoinPool() {
+        return PoolHolder.POOL;
+    }
+
+    public static Executor executor(CrawlerPoolType poolType) {
+        if (CrawlerPoolType.VIRTUAL_THREADS.equals(poolType) && VirtualThreadHolder.EXECUTOR != null) {
+            return VirtualThreadHolder.EXECUTOR;
+        }
+        return forkJoinPool();
+    }
+
+    private static final class SchedulerHolder {
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bytestash-crawler-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("bytestash-crawler-" + thread.getPoolIndex());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (thread, e) -> logger.debug("Crawler thread {} failed with error : {}", thread, e, e),
+                true, 0, MAX_POOL_SIZE, 1, null, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static final class VirtualThreadHolder {
+        static final ExecutorService EXECUTOR = VirtualThreads.newExecutorOrNull();
+    }
+}
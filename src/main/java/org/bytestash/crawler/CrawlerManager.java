@@ -1,5 +1,22 @@
 package org.bytestash.crawler;
 
+import org.bytestash.cache.Crawlable;
+import org.bytestash.stats.HistogramSnapshot;
+
 public interface CrawlerManager<T> {
     String toString();
+
+    void addCrawlable(Crawlable crawlable);
+
+    void removeCrawlable(Crawlable crawlable);
+
+    /**
+     * Stops scheduling crawls, a crawl already running finishes.
+     */
+    void stopTaskScheduler();
+
+    /**
+     * How late the expired entries were removed, from the time they were due until the crawl got to them.
+     */
+    HistogramSnapshot getCrawlerLag();
 }
@@ -0,0 +1,12 @@
+package org.bytestash.crawler;
+
+/**
+ * Threads the crawl work runs on, see {@link CrawlerExecutors}.
+ */
+public enum CrawlerPoolType {
+    FORK_JOIN,
+    /**
+     * Virtual threads when the runtime has them, the fork join pool otherwise.
+     */
+    VIRTUAL_THREADS
+}
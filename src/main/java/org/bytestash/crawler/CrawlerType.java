@@ -1,5 +1,5 @@
 package org.bytestash.crawler;
 
 public enum CrawlerType {
-    TTL
+    TTL, TIMING_WHEEL
 }
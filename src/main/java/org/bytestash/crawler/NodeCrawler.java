@@ -1,13 +1,11 @@
 package org.bytestash.crawler;
 
-import org.bytestash.cache.CacheRegionType;
-import org.bytestash.cache.Crawlable;
-
 public interface NodeCrawler<T> {
 
-    void nodeCleanup(Crawlable crawlable, CacheRegionType cacheRegion, int pos);
-
     void getTask();
 
-    void startTaskScheduler();
+    /**
+     * Tells the crawler there is work in the queue, it starts draining it unless it is already running.
+     */
+    void signal();
 }
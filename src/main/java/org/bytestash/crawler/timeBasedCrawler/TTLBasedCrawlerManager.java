@@ -3,61 +3,123 @@ package org.bytestash.crawler.timeBasedCrawler;
 import lombok.Getter;
 import org.bytestash.cache.CacheRegionType;
 import org.bytestash.cache.Crawlable;
+import org.bytestash.crawler.CrawlerExecutors;
 import org.bytestash.crawler.CrawlerManager;
+import org.bytestash.crawler.CrawlerPoolType;
 import org.bytestash.crawler.NodeCrawler;
+import org.bytestash.stats.HistogramSnapshot;
+import org.bytestash.stats.LatencyHistogram;
+import org.bytestash.taskhandler.NodeWork;
 import org.bytestash.taskhandler.TaskQueueHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.Timestamp;
-import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Checks on the shared crawler scheduler which regions are due and signals the node crawlers, the next check
+ * is scheduled for the earliest expiration it saw.
+ */
 public class TTLBasedCrawlerManager<T> implements CrawlerManager<T> {
     private static final Logger logger = LoggerFactory.getLogger(TTLBasedCrawlerManager.class);
-    List<HashMap<CacheRegionType, Timestamp>> oldestTimeStamps;
-    List<? extends Crawlable> crawlables;
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /**
+     * Next expiration time per node, indexed by the ordinal of the region.
+     */
+    List<long[]> nextExpirations;
+    /**
+     * Crawl task per node, indexed by the ordinal of the region, reused every time the region is due.
+     */
+    List<NodeWork[]> nodeWorks;
+    List<Crawlable> crawlables;
     @Getter
     List<NodeCrawler<T>> nodeCrawlers;
     @Getter
     private final int noOfCrawlers;
     TaskQueueHandler taskQueueHandler;
-    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private volatile ScheduledFuture<?> nextCheck;
+    private volatile boolean stopped;
+    private final LatencyHistogram crawlerLag = new LatencyHistogram();
 
-    protected void changeOldTimeStamp(int pos, CacheRegionType region, Timestamp timestamp) {
-        logger.debug("Changed TimeStamp for Node:{} from {} to {}", pos, this.oldestTimeStamps.get(pos).get(region), timestamp);
-        this.oldestTimeStamps.get(pos).put(region, timestamp);
+    protected void changeNextExpiration(int pos, CacheRegionType region, long nextExpiration) {
+        long[] expirations = this.nextExpirations.get(pos);
+        long lag = crawlables.get(pos).getTicker().read() - expirations[region.ordinal()];
+        if (lag > 0) {
+            crawlerLag.record(lag);
+        }
+        logger.debug("Changed next expiration for Node:{} from {} to {}", pos, expirations[region.ordinal()], nextExpiration);
+        expirations[region.ordinal()] = nextExpiration;
     }
 
 
     public TTLBasedCrawlerManager(List<? extends Crawlable> crawlables, int noOfCrawlers, TaskQueueHandler queueHandler) {
-        this.crawlables = crawlables;
-        oldestTimeStamps = new ArrayList<>();
-        crawlables.forEach(node -> {
-            HashMap<CacheRegionType, Timestamp> map = new HashMap<>();
-            map.put(CacheRegionType.HOT, Timestamp.from(Instant.now()));
-            map.put(CacheRegionType.WARM, Timestamp.from(Instant.now()));
-            map.put(CacheRegionType.COLD, Timestamp.from(Instant.now()));
-            oldestTimeStamps.add(map);
-        });
+        this(crawlables, noOfCrawlers, queueHandler, CrawlerPoolType.FORK_JOIN);
+    }
+
+    public TTLBasedCrawlerManager(List<? extends Crawlable> crawlables, int noOfCrawlers, TaskQueueHandler queueHandler,
+                                  CrawlerPoolType poolType) {
+        this.executor = CrawlerExecutors.executor(poolType);
+        this.crawlables = new CopyOnWriteArrayList<>(crawlables);
+        nextExpirations = new CopyOnWriteArrayList<>();
+        crawlables.forEach(node -> nextExpirations.add(createExpirations(node)));
+        nodeWorks = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < crawlables.size(); i++) {
+            nodeWorks.add(createNodeWorks(crawlables.get(i), i));
+        }
         this.noOfCrawlers = noOfCrawlers;
         this.taskQueueHandler = queueHandler;
         initializeNodeCrawlers(noOfCrawlers);
         nodeCrawlers.forEach(crawler -> logger.debug(crawler.toString()));
-        scheduler = Executors.newSingleThreadScheduledExecutor();
         scheduleTasks();
     }
 
-    private void scheduleTasks() {
-        for (NodeCrawler<T> crawler : nodeCrawlers) {
-            crawler.startTaskScheduler();
+    private long[] createExpirations(Crawlable crawlable) {
+        long[] expirations = new long[CacheRegionType.values().length];
+        Arrays.fill(expirations, crawlable.getTicker().read() + TimeUnit.SECONDS.toNanos(crawlable.getTtl()));
+        return expirations;
+    }
+
+    private NodeWork[] createNodeWorks(Crawlable crawlable, int pos) {
+        NodeWork[] works = new NodeWork[CacheRegionType.values().length];
+        for (CacheRegionType region : CacheRegionType.values()) {
+            works[region.ordinal()] = new NodeWork(crawlable, region, pos);
         }
+        return works;
+    }
+
+    @Override
+    public synchronized void addCrawlable(Crawlable crawlable) {
+        nextExpirations.add(createExpirations(crawlable));
+        nodeWorks.add(createNodeWorks(crawlable, crawlables.size()));
+        crawlables.add(crawlable);
+        logger.debug("Added Node {} at pos {} to crawling", crawlable, crawlables.size() - 1);
+    }
+
+    @Override
+    public synchronized void removeCrawlable(Crawlable crawlable) {
+        int pos = crawlables.indexOf(crawlable);
+        if (pos >= 0) {
+            crawlables.remove(pos);
+            nextExpirations.remove(pos);
+            nodeWorks.remove(pos);
+            for (int i = pos; i < nodeWorks.size(); i++) {
+                for (NodeWork work : nodeWorks.get(i)) {
+                    work.setPos(i);
+                }
+            }
+            logger.debug("Removed Node {} at pos {} from crawling", crawlable, pos);
+        }
+    }
+
+    private void scheduleTasks() {
         startQueueScheduler();
     }
 
@@ -65,30 +127,66 @@ public class TTLBasedCrawlerManager<T> implements CrawlerManager<T> {
         nodeCrawlers = new ArrayList<>();
         logger.debug("Initializing Node Crawlers with count: {}", noOfCrawlers);
         for (var i = 0; i < noOfCrawlers; i++) {
-            nodeCrawlers.add(new TTLBasedNodeCrawler<>(false, this, taskQueueHandler, i));
+            nodeCrawlers.add(new TTLBasedNodeCrawler<>(executor, this, taskQueueHandler, i));
         }
     }
 
     public void startQueueScheduler() {
-        scheduler.scheduleAtFixedRate(this::scheduleTaskToQueue, 0, 1, TimeUnit.SECONDS);
-    }
-
-    protected void scheduleTaskToQueue() {
-        List<HashMap<CacheRegionType, Timestamp>> listCopy = new ArrayList<>(oldestTimeStamps);
-        for (int i = 0; i < listCopy.size(); i++) {
-            if (crawlables.get(i).getFilledCapacity() > 0) {
-                long ttlForNode = crawlables.get(i).getTtl();
-                for (Map.Entry<CacheRegionType, Timestamp> entry : listCopy.get(i).entrySet()) {
-                    CacheRegionType region = entry.getKey();
-                    Timestamp timestamp1 = entry.getValue();
-                    Timestamp timestamp = Timestamp.from(Instant.now());
-                    if (timestamp.toInstant().toEpochMilli() - timestamp1.toInstant().toEpochMilli() > (ttlForNode * 1000)) {
-                        taskQueueHandler.addTask(crawlables.get(i), region, i);
+        scheduleNextCheck(0);
+    }
+
+    private void scheduleNextCheck(long delayNanos) {
+        if (!stopped) {
+            nextCheck = CrawlerExecutors.scheduler().schedule(this::checkQueue, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void checkQueue() {
+        long delay = MAX_DELAY_NANOS;
+        try {
+            delay = scheduleTaskToQueue();
+        } catch (Exception e) {
+            logger.debug("Error while scheduling crawl tasks with error : {}", e, e);
+        } finally {
+            scheduleNextCheck(Math.max(MIN_DELAY_NANOS, Math.min(MAX_DELAY_NANOS, delay)));
+        }
+    }
+
+    /**
+     * Queues the due regions, signals the crawlers and returns the time until the next region is due.
+     */
+    protected long scheduleTaskToQueue() {
+        long delay = MAX_DELAY_NANOS;
+        List<long[]> listCopy = new ArrayList<>(nextExpirations);
+        List<NodeWork[]> worksCopy = new ArrayList<>(nodeWorks);
+        List<Crawlable> crawlablesCopy = new ArrayList<>(crawlables);
+        for (int i = 0; i < Math.min(Math.min(listCopy.size(), worksCopy.size()), crawlablesCopy.size()); i++) {
+            Crawlable crawlable = crawlablesCopy.get(i);
+            if (crawlable.getFilledCapacity() > 0) {
+                long now = crawlable.getTicker().read();
+                long[] expirations = listCopy.get(i);
+                for (CacheRegionType region : CacheRegionType.values()) {
+                    long remaining = expirations[region.ordinal()] - now;
+                    if (remaining <= 0) {
+                        taskQueueHandler.addTask(worksCopy.get(i)[region.ordinal()]);
+                    } else {
+                        delay = Math.min(delay, remaining);
                     }
                 }
             }
         }
+        signalCrawlers();
         checkStatusOfCrawlers();
+        return delay;
+    }
+
+    private void signalCrawlers() {
+        for (NodeCrawler<T> crawler : nodeCrawlers) {
+            if (taskQueueHandler.size() == 0) {
+                return;
+            }
+            crawler.signal();
+        }
     }
 
     private void checkStatusOfCrawlers() {
@@ -97,8 +195,18 @@ public class TTLBasedCrawlerManager<T> implements CrawlerManager<T> {
         }
     }
 
+    @Override
+    public HistogramSnapshot getCrawlerLag() {
+        return crawlerLag.snapshot();
+    }
+
+    @Override
     public void stopTaskScheduler() {
-        scheduler.shutdown();
+        stopped = true;
+        ScheduledFuture<?> check = nextCheck;
+        if (check != null) {
+            check.cancel(false);
+        }
     }
 
 }
@@ -1,78 +1,107 @@
 package org.bytestash.crawler.timeBasedCrawler;
 
 import lombok.ToString;
-import org.bytestash.cache.CacheRegionType;
-import org.bytestash.cache.Crawlable;
 import org.bytestash.crawler.NodeCrawler;
+import org.bytestash.evictionpolicy.EvictionInfo;
 import org.bytestash.evictionpolicy.TimeStampBasedEvictionInfo;
 import org.bytestash.taskhandler.NodeWork;
 import org.bytestash.taskhandler.TaskQueueHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @ToString
 public class TTLBasedNodeCrawler<T> implements NodeCrawler<T> {
     private static final Logger logger = LoggerFactory.getLogger(TTLBasedNodeCrawler.class);
-    boolean busy;
-    private final ScheduledExecutorService scheduler;
+    private static final int SLICE_ENTRIES = 512;
+    private static final long SLICE_MICROS = 500;
+    private final AtomicBoolean running = new AtomicBoolean();
+    @ToString.Exclude
+    private final Executor executor;
+    @ToString.Exclude
     TTLBasedCrawlerManager<T> TTLBasedCrawler;
+    @ToString.Exclude
     TaskQueueHandler taskQueueHandler;
 
     private final int index;
 
-    protected TTLBasedNodeCrawler(boolean busy, TTLBasedCrawlerManager<T> tTLBasedCrawler, TaskQueueHandler taskQueueHandler,
+    protected TTLBasedNodeCrawler(Executor executor, TTLBasedCrawlerManager<T> tTLBasedCrawler, TaskQueueHandler taskQueueHandler,
                           int index) {
-        this.busy = busy;
+        this.executor = executor;
         this.TTLBasedCrawler = tTLBasedCrawler;
         this.taskQueueHandler = taskQueueHandler;
         this.index = index;
-        scheduler = Executors.newScheduledThreadPool(2);
     }
 
-    public synchronized void nodeCleanup(Crawlable crawlable, CacheRegionType cacheRegion, int pos) {
-        logger.debug("Started cleaning of node {}, region {}", crawlable, cacheRegion);
-        busy = true;
-        try {
-            TimeStampBasedEvictionInfo timeStampBasedRemovedInfo = (TimeStampBasedEvictionInfo) crawlable.removeItems(cacheRegion);
-            TTLBasedCrawler.changeOldTimeStamp(pos, cacheRegion, timeStampBasedRemovedInfo.getOldestTimeStamp());
-        } catch (Exception e){
-            logger.debug("Error while cleaning Node: {}, Region: {} with error : {}",crawlable,cacheRegion,e,e);
-        } finally {
-            busy = false;
+    /**
+     * Drains the queue. On a fork join pool every task is forked so idle workers steal them while this one
+     * keeps taking tasks from the queue.
+     */
+    public void getTask() {
+        NodeWork nodeWork;
+        while ((nodeWork = taskQueueHandler.removeTask()) != null) {
+            logger.debug("Task taken by {} for work {}", index, nodeWork);
+            NodeWork work = nodeWork;
+            if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinTask.adapt(() -> crawl(work)).fork();
+            } else {
+                crawl(work);
+            }
         }
-        logger.debug("Finished cleaning of node {}, region {}", crawlable, cacheRegion);
     }
 
-    public void getTask() {
-        if (!busy) {
-            NodeWork nodeWork = taskQueueHandler.removeTask();
-            if(nodeWork != null) {
-                logger.debug("Task taken by {} for work {}", index, nodeWork);
-                nodeCleanup(nodeWork.getCrawlable(), nodeWork.getCacheRegion(), nodeWork.getPos());
+    /**
+     * Crawls one slice of the region and hands the rest of it back to the pool as a new task, so a large region
+     * does not hold a worker and other workers can pick up the remaining slices.
+     */
+    private void crawl(NodeWork nodeWork) {
+        boolean done = true;
+        try {
+            EvictionInfo info = nodeWork.getCrawlable().crawl(nodeWork.getCacheRegion(), SLICE_ENTRIES, SLICE_MICROS);
+            done = info.isDone();
+            if (done) {
+                logger.debug("Finished crawl of node {}, region {}, scanned {}, removed {}", nodeWork.getCrawlable(),
+                        nodeWork.getCacheRegion(), info.getScanned(), info.getRemoved());
+                TTLBasedCrawler.changeNextExpiration(nodeWork.getPos(), nodeWork.getCacheRegion(),
+                        ((TimeStampBasedEvictionInfo) info).getNextExpiration());
+            } else if (ForkJoinTask.inForkJoinPool()) {
+                ForkJoinTask.adapt(() -> crawl(nodeWork)).fork();
+            } else {
+                executor.execute(() -> crawl(nodeWork));
+            }
+        } catch (Exception e) {
+            done = true;
+            logger.debug("Error while crawling Node: {}, Region: {} with error : {}", nodeWork.getCrawlable(),
+                    nodeWork.getCacheRegion(), e, e);
+        } finally {
+            if (done) {
+                taskQueueHandler.complete(nodeWork);
             }
         }
     }
 
-
-    public void startTaskScheduler() {
-        scheduler.scheduleAtFixedRate(this::getTask, 0, 1, TimeUnit.SECONDS);
+    @Override
+    public void signal() {
+        if (running.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
     }
 
-    public void stopScheduler() {
-        if (scheduler != null) {
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                    scheduler.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                scheduler.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
+    private void drain() {
+        try {
+            getTask();
+        } finally {
+            running.set(false);
+        }
+        if (taskQueueHandler.size() > 0) {
+            signal();
         }
     }
 
+    public boolean isRunning() {
+        return running.get();
+    }
 }
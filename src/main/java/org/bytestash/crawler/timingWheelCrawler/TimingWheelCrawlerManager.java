@@ -0,0 +1,100 @@
+package org.bytestash.crawler.timingWheelCrawler;
+
+import lombok.Getter;
+import org.bytestash.cache.Crawlable;
+import org.bytestash.crawler.CrawlerExecutors;
+import org.bytestash.crawler.CrawlerManager;
+import org.bytestash.crawler.CrawlerPoolType;
+import org.bytestash.stats.HistogramSnapshot;
+import org.bytestash.stats.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ticks the timing wheel of every node, each tick only touches the entries that are due so there is no
+ * periodic scan of the regions.
+ */
+public class TimingWheelCrawlerManager<T> implements CrawlerManager<T> {
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheelCrawlerManager.class);
+    private static final long TICK_MILLIS = 250;
+
+    List<Crawlable> crawlables;
+    private final Executor executor;
+    private final ScheduledFuture<?> ticks;
+    private final AtomicBoolean ticking = new AtomicBoolean();
+    @Getter
+    private volatile long expiredEntries;
+    private final LatencyHistogram crawlerLag = new LatencyHistogram();
+
+    public TimingWheelCrawlerManager(List<? extends Crawlable> crawlables) {
+        this(crawlables, CrawlerPoolType.FORK_JOIN);
+    }
+
+    public TimingWheelCrawlerManager(List<? extends Crawlable> crawlables, CrawlerPoolType poolType) {
+        this.crawlables = new CopyOnWriteArrayList<>(crawlables);
+        this.executor = CrawlerExecutors.executor(poolType);
+        ticks = CrawlerExecutors.scheduler().scheduleAtFixedRate(this::signal, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the tick on the crawler pool, a tick is skipped while the previous one is still running.
+     */
+    private void signal() {
+        if (ticking.compareAndSet(false, true)) {
+            long signalled = System.nanoTime();
+            executor.execute(() -> {
+                crawlerLag.record(System.nanoTime() - signalled);
+                try {
+                    tick();
+                } finally {
+                    ticking.set(false);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void addCrawlable(Crawlable crawlable) {
+        crawlables.add(crawlable);
+    }
+
+    @Override
+    public void removeCrawlable(Crawlable crawlable) {
+        crawlables.remove(crawlable);
+    }
+
+    protected void tick() {
+        for (Crawlable crawlable : crawlables) {
+            try {
+                expiredEntries += crawlable.expireEntries();
+            } catch (Exception e) {
+                logger.debug("Error while expiring entries of Node: {} with error : {}", crawlable, e, e);
+            }
+        }
+    }
+
+    /**
+     * Entries expire on the tick that follows their expiration, so the lag is how long a tick waited for the pool.
+     */
+    @Override
+    public HistogramSnapshot getCrawlerLag() {
+        return crawlerLag.snapshot();
+    }
+
+    @Override
+    public void stopTaskScheduler() {
+        ticks.cancel(false);
+    }
+
+    @Override
+    public String toString() {
+        return "TimingWheelCrawlerManager{" + "nodes=" + crawlables.size() + ", expiredEntries=" + expiredEntries + '}';
+    }
+}
@@ -0,0 +1,86 @@
+package org.bytestash.creator;
+
+import org.bytestash.util.VirtualThreads;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs the calls of a ByteStashManager on an executor, key derivation, routing and the region maintenance a
+ * write triggers all happen there.
+ */
+class AsyncByteStashManager<T> implements AsyncCacheManager<Object, T> {
+
+    private final ByteStashManager<T> manager;
+
+    private final Executor executor;
+
+    AsyncByteStashManager(ByteStashManager<T> manager, Executor executor) {
+        this.manager = manager;
+        this.executor = executor;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Virtual threads when the runtime has them, the common fork join pool otherwise.
+     */
+    static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    @Override
+    public <S extends T> CompletableFuture<T> getAsync(Object keyObject, Class<S> clazz) {
+        return CompletableFuture.supplyAsync(() -> manager.get(keyObject, clazz), executor);
+    }
+
+    @Override
+    public <S extends T> CompletableFuture<Void> putAsync(Object keyObject, S value) {
+        return CompletableFuture.runAsync(() -> manager.put(keyObject, value), executor);
+    }
+
+    @Override
+    public <S extends T> CompletableFuture<Void> putAsync(Object keyObject, S value, Duration ttl) {
+        return CompletableFuture.runAsync(() -> manager.put(keyObject, value, ttl), executor);
+    }
+
+    @Override
+    public CompletableFuture<T> removeAsync(Object keyObject, Class<T> clazz) {
+        return CompletableFuture.supplyAsync(() -> manager.remove(keyObject, clazz), executor);
+    }
+
+    @Override
+    public <S extends T> CompletableFuture<Map<Object, T>> getAllAsync(Collection<?> keyObjects, Class<S> clazz) {
+        return CompletableFuture.supplyAsync(() -> manager.getAll(keyObjects, clazz), executor);
+    }
+
+    @Override
+    public <S extends T> CompletableFuture<Void> putAllAsync(Map<?, S> entries) {
+        return CompletableFuture.runAsync(() -> manager.putAll(entries), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<Object, T>> removeAllAsync(Collection<?> keyObjects, Class<T> clazz) {
+        return CompletableFuture.supplyAsync(() -> manager.removeAll(keyObjects, clazz), executor);
+    }
+
+    @Override
+    public ByteStashManager<T> synchronous() {
+        return manager;
+    }
+
+    private static final class DefaultExecutorHolder {
+        static final Executor EXECUTOR = createDefaultExecutor();
+
+        private static Executor createDefaultExecutor() {
+            Executor executor = VirtualThreads.newExecutorOrNull();
+            return executor != null ? executor : ForkJoinPool.commonPool();
+        }
+    }
+}
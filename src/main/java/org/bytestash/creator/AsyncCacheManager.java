@@ -0,0 +1,22 @@
+package org.bytestash.creator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non blocking view of a CacheManager, every call runs on the executor of the view and never on the caller's
+ * thread.
+ */
+public interface AsyncCacheManager<Q, T> {
+    <S extends T> CompletableFuture<T> getAsync(Q keyObject, Class<S> clazz);
+    <S extends T> CompletableFuture<Void> putAsync(Q keyObject, S value);
+    <S extends T> CompletableFuture<Void> putAsync(Q keyObject, S value, Duration ttl);
+    CompletableFuture<T> removeAsync(Q keyObject, Class<T> clazz);
+    <S extends T> CompletableFuture<Map<Q, T>> getAllAsync(Collection<? extends Q> keyObjects, Class<S> clazz);
+    <S extends T> CompletableFuture<Void> putAllAsync(Map<? extends Q, S> entries);
+    CompletableFuture<Map<Q, T>> removeAllAsync(Collection<? extends Q> keyObjects, Class<T> clazz);
+
+    CacheManager<Q, T> synchronous();
+}
@@ -1,20 +1,35 @@
 package org.bytestash.creator;
 
 import lombok.Builder;
+import org.bytestash.cache.CacheNodeConfig;
+import org.bytestash.cache.NodeExecutionMode;
+import org.bytestash.cache.Weigher;
+import org.bytestash.crawler.CrawlerPoolType;
 import org.bytestash.crawler.CrawlerType;
+import org.bytestash.evictionpolicy.AdmissionPolicy;
+import org.bytestash.evictionpolicy.Expiry;
+import org.bytestash.key.KeyCodec;
+import org.bytestash.key.KeyCodecs;
+import org.bytestash.router.RouterType;
+import org.bytestash.storage.ValueSerializer;
+import org.bytestash.taskhandler.OverflowPolicy;
 import org.bytestash.taskhandler.TaskQueueHandler;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 public class ByteStashFactory<T> implements CacheManagerFactory<Object,T>{
 
-    private static final long MIN_CAPACITY = 10L;
-    private static final long MAX_CAPACITY = 1000000L;
-    private static final int MIN_QUEUE_SIZE = 1000;
-    private static final int MAX_QUEUE_SIZE = 1000000;
-    private static final int MIN_TTL = 30;
-    private static final int MAX_TTL = 5 * 60;
-    private static final Integer MAX_NODES = 12;
-    private static final Integer MIN_NODES = 1;
+    private static final long MIN_OFF_HEAP_CAPACITY = 1L << 20;
+    private static final long DEFAULT_OFF_HEAP_CAPACITY = 256L << 20;
+    private static final float MIN_REGION_PERCENT = 0.05f;
+    private static final float MAX_REGION_PERCENT = 0.9f;
+    private static final float DEFAULT_MAX_REGION_PERCENT = 0.8f;
+    private static final long DEFAULT_DISK_TIER_CAPACITY = 1L << 30;
+    private static final int MIN_DISK_SEGMENT_SIZE = 1 << 20;
+    private static final int MAX_DISK_SEGMENT_SIZE = 64 << 20;
 
     TaskQueueHandler queueHandler;
 
@@ -22,17 +37,42 @@ public class ByteStashFactory<T> implements CacheManagerFactory<Object,T>{
     private final ByteStashManager<T> byteStash;
 
     @Builder(setterPrefix = "with")
-    public ByteStashFactory(Integer nodes, Long capacity, Float hotPercent, Float warmPercent, Integer timeToLive, Integer queueSize)  {
-        int nodesVal = getValidValue(nodes, MIN_NODES, MAX_NODES);
-        long capacityVal = getValidValue(capacity, MIN_CAPACITY, MAX_CAPACITY);
-        int ttl = getValidValue(timeToLive, MIN_TTL, MAX_TTL);
-        int qSize = getValidValue(queueSize, MIN_QUEUE_SIZE, MAX_QUEUE_SIZE);
-        queueHandler = new TaskQueueHandler(qSize);
-        this.byteStash = new ByteStashManager<>(nodesVal, capacityVal, hotPercent, warmPercent, ttl, queueHandler, crawlerType);
-    }
-
-    private <S extends Comparable<S>> S getValidValue(S value, S min, S max) {
-        return value == null ? min : (value.compareTo(min) >= 0 && value.compareTo(max) <= 0) ? value : (value.compareTo(min) < 0 ? min : max);
+    public ByteStashFactory(Integer nodes, Long capacity, Float hotPercent, Float warmPercent, Integer timeToLive, Integer queueSize, List<KeyCodec<?>> keyCodecs, RouterType routerType, NodeExecutionMode executionMode, ValueSerializer<T> valueSerializer, Long offHeapCapacity, Weigher<Object, ? super T> weigher, Long maximumWeight, CrawlerType crawlerType, Expiry<Object, ? super T> expiry, OverflowPolicy overflowPolicy, CrawlerPoolType crawlerPool, Executor asyncExecutor, Duration refreshAfterWrite, AdmissionPolicy admissionPolicy, Boolean adaptiveSizing, Float minRegionPercent, Float maxRegionPercent, String jmxName, Path diskTierDirectory, Long diskTierCapacity)  {
+        int nodesVal = FactoryBounds.getValidValue(nodes, FactoryBounds.MIN_NODES, FactoryBounds.MAX_NODES);
+        if (refreshAfterWrite != null && (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero())) {
+            throw new IllegalArgumentException("refreshAfterWrite has to be positive: " + refreshAfterWrite);
+        }
+        if (weigher != null && maximumWeight == null) {
+            throw new IllegalArgumentException("maximumWeight has to be set together with a weigher");
+        }
+        long capacityVal = FactoryBounds.getValidValue(maximumWeight != null ? maximumWeight : capacity, FactoryBounds.MIN_CAPACITY, Long.MAX_VALUE);
+        int ttl = FactoryBounds.getValidValue(timeToLive, FactoryBounds.MIN_TTL, FactoryBounds.MAX_TTL);
+        int qSize = FactoryBounds.getValidValue(queueSize, FactoryBounds.MIN_QUEUE_SIZE, FactoryBounds.MAX_QUEUE_SIZE);
+        queueHandler = new TaskQueueHandler(qSize, overflowPolicy);
+        this.crawlerType = crawlerType == null ? CrawlerType.TTL : crawlerType;
+        long diskPerNode = (diskTierCapacity == null ? DEFAULT_DISK_TIER_CAPACITY : diskTierCapacity) / nodesVal;
+        int diskSegmentSize = (int) Math.max(MIN_DISK_SEGMENT_SIZE, Math.min(MAX_DISK_SEGMENT_SIZE, diskPerNode / 8));
+        long offHeapPerNode = Math.max(MIN_OFF_HEAP_CAPACITY, (offHeapCapacity == null ? DEFAULT_OFF_HEAP_CAPACITY : offHeapCapacity) / nodesVal);
+        CacheNodeConfig<T> nodeConfig = CacheNodeConfig.<T>builder()
+                                                .withExecutionMode(executionMode == null ? NodeExecutionMode.DIRECT : executionMode)
+                                                .withValueSerializer(valueSerializer)
+                                                .withOffHeapCapacity(offHeapPerNode)
+                                                .withWeigher(weigher == null ? Weigher.singleton() : weigher)
+                                                .withTimerWheel(CrawlerType.TIMING_WHEEL.equals(this.crawlerType))
+                                                .withExpiry(expiry)
+                                                .withRefreshAfterWrite(refreshAfterWrite)
+                                                .withAdmissionPolicy(admissionPolicy == null ? AdmissionPolicy.ALWAYS : admissionPolicy)
+                                                .withAdaptiveSizing(Boolean.TRUE.equals(adaptiveSizing))
+                                                .withMinRegionPercent(FactoryBounds.getValidValue(minRegionPercent, MIN_REGION_PERCENT, MAX_REGION_PERCENT))
+                                                .withDiskTierDirectory(diskTierDirectory)
+                                                .withDiskTierCapacity(diskPerNode)
+                                                .withDiskSegmentSize(diskSegmentSize)
+                                                .withMaxRegionPercent(FactoryBounds.getValidValue(maxRegionPercent == null ? DEFAULT_MAX_REGION_PERCENT : maxRegionPercent, MIN_REGION_PERCENT, MAX_REGION_PERCENT))
+                                                .build();
+        this.byteStash = new ByteStashManager<>(nodesVal, capacityVal, hotPercent, warmPercent, ttl, queueHandler, this.crawlerType, crawlerPool == null ? CrawlerPoolType.FORK_JOIN : crawlerPool, new KeyCodecs(keyCodecs), routerType, nodeConfig, asyncExecutor);
+        if (jmxName != null) {
+            byteStash.registerMBeans(jmxName);
+        }
     }
 
     @Override
@@ -1,107 +1,553 @@
 package org.bytestash.creator;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.bytestash.cache.CacheNode;
+import org.bytestash.cache.CacheNodeConfig;
 import org.bytestash.crawler.CrawlerManager;
+import org.bytestash.crawler.CrawlerPoolType;
 import org.bytestash.crawler.CrawlerType;
+import org.bytestash.key.CacheKey;
+import org.bytestash.key.KeyCodecs;
+import org.bytestash.router.NodeRouter;
+import org.bytestash.router.RouterType;
+import org.bytestash.snapshot.CacheSnapshots;
+import org.bytestash.stats.StatsBean;
+import org.bytestash.stats.StatsSnapshot;
+import org.bytestash.storage.JavaSerializer;
+import org.bytestash.storage.ValueSerializer;
 import org.bytestash.taskhandler.TaskQueueHandler;
 import org.bytestash.util.CacheUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
-public class ByteStashManager<T> implements CacheManager<Object, T> {
+public class ByteStashManager<T> implements CacheManager<Object, T>, AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(ByteStashManager.class);
+    private static final int MIGRATION_BATCH_SIZE = 256;
+    private static final long MIGRATION_PAUSE_NANOS = 1_000_000L;
+    private static final int PARALLEL_BATCH_SIZE = 4096;
+
     List<CacheNode<T>> nodes;
     CrawlerManager<T> crawlerManager;
+    private final TaskQueueHandler queueHandler;
+    private volatile String jmxName;
+
 
+    private final KeyCodecs keyCodecs;
+    private final long capacityPerNode;
+    private final float hotPercent;
+    private final float warmPercent;
+    private final int timeToLive;
+    private final CacheNodeConfig<T> nodeConfig;
+    private final ExecutorService migrationExecutor;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    int numNodes;
+    private final AsyncByteStashManager<T> asyncView;
+    private volatile Routing<T> routing;
+    private CompletableFuture<Void> migration = CompletableFuture.completedFuture(null);
 
-    protected ByteStashManager(Integer nodesCount, Long capacity, Float hotPercent, Float warmPercent, Integer timeToLive, TaskQueueHandler queueHandler, CrawlerType type) {
+    protected ByteStashManager(Integer nodesCount, Long capacity, Float hotPercent, Float warmPercent, Integer timeToLive, TaskQueueHandler queueHandler, CrawlerType type, CrawlerPoolType crawlerPool, KeyCodecs keyCodecs, RouterType routerType, CacheNodeConfig<T> nodeConfig, Executor asyncExecutor) {
 
 
-        this.numNodes = nodesCount;
-        long capacityPerNode = capacity / numNodes;
-        hotPercent = hotPercent == null ? 0f : hotPercent;
-        warmPercent = warmPercent == null ? 0f : warmPercent;
-        createNodes(capacityPerNode, hotPercent, warmPercent, timeToLive);
-        int noOfCrawlers = numNodes / 4 + 1;
-        crawlerManager = CacheUtil.getCrawlerManagerFromType(type, nodes, noOfCrawlers,queueHandler);
+        this.keyCodecs = keyCodecs;
+        this.queueHandler = queueHandler;
+        this.asyncView = new AsyncByteStashManager<>(this, asyncExecutor == null ? AsyncByteStashManager.defaultExecutor() : asyncExecutor);
+        this.nodeConfig = nodeConfig == null ? CacheNodeConfig.defaults() : nodeConfig;
+        this.capacityPerNode = capacity / nodesCount;
+        this.hotPercent = hotPercent == null ? 0f : hotPercent;
+        this.warmPercent = warmPercent == null ? 0f : warmPercent;
+        this.timeToLive = timeToLive;
+        createNodes(nodesCount);
+        this.routing = new Routing<>(CacheUtil.getNodeRouterFromType(routerType, nodesCount), null, nodes);
+        int noOfCrawlers = nodesCount / 4 + 1;
+        crawlerManager = CacheUtil.getCrawlerManagerFromType(type, nodes, noOfCrawlers, queueHandler, crawlerPool);
+        migrationExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bytestash-node-migration");
+            thread.setDaemon(true);
+            return thread;
+        });
 
     }
 
 
-    private void createNodes(Long capacityPerNode, Float hotPercent, Float warmPercent, Integer timeToLive) {
-        nodes = new ArrayList<>();
+    private void createNodes(int numNodes) {
+        nodes = new CopyOnWriteArrayList<>();
         for (int i = 0; i < numNodes; i++) {
-            nodes.add(new CacheNode<>(capacityPerNode, hotPercent, warmPercent, timeToLive, i));
+            nodes.add(createNode(i));
         }
         logger.debug("Successfully Created {} CacheNodes", numNodes);
     }
 
+    private CacheNode<T> createNode(int index) {
+        return new CacheNode<>(capacityPerNode, hotPercent, warmPercent, timeToLive, index, nodeConfig);
+    }
+
     public <S extends T> T get(Object keyObject, Class<S> clazz) {
-        String key = getKeyFromObject(keyObject, clazz);
+        CacheKey key = getKeyFromObject(keyObject, clazz);
         if (key != null) {
-            int node = getNodeFromKey(key);
-            return nodes.get(node).get(key);
+            Routing<T> current = routing;
+            CacheNode<T> owner = current.owner(key);
+            T value = owner.get(key);
+            CacheNode<T> previousOwner = current.previousOwner(key, owner);
+            if (value == null && previousOwner != null) {
+                value = previousOwner.moveTo(key, owner);
+            }
+            return value;
         }
         return null;
     }
 
     public T remove(Object keyObject, Class<T> clazz) {
-        String key = getKeyFromObject(keyObject, clazz);
+        CacheKey key = getKeyFromObject(keyObject, clazz);
         if (key != null) {
-            int node = getNodeFromKey(key);
-            return nodes.get(node).remove(key);
+            Routing<T> current = routing;
+            CacheNode<T> owner = current.owner(key);
+            T value = owner.remove(key);
+            CacheNode<T> previousOwner = current.previousOwner(key, owner);
+            if (previousOwner != null) {
+                T previousValue = previousOwner.remove(key);
+                value = value != null ? value : previousValue;
+            }
+            return value;
         }
         return null;
     }
 
     public <S extends T> void put(Object keyObject, S value) {
-        String key = getKeyFromObject(keyObject, value.getClass());
+        put(keyObject, value, null);
+    }
+
+    /**
+     * Puts the value with its own time to live, the expiry policy of the nodes is used when ttl is null.
+     */
+    public <S extends T> void put(Object keyObject, S value, Duration ttl) {
+        CacheKey key = getKeyFromObject(keyObject, value.getClass());
         if (key != null) {
-            int node = getNodeFromKey(key);
-            nodes.get(node).put(key, value);
+            Routing<T> current = routing;
+            CacheNode<T> owner = current.owner(key);
+            CacheNode<T> previousOwner = current.previousOwner(key, owner);
+            if (previousOwner != null) {
+                previousOwner.remove(key);
+            }
+            if (ttl == null) {
+                owner.put(key, value);
+            } else {
+                owner.put(key, value, ttl);
+            }
+            relocate(key, current, owner);
+        }
+    }
+
+    /**
+     * A write that read the routing before a resize swapped it may land on its old owner after the migration
+     * went past the key, the entry is then moved to the owner of the current routing until the routing stays.
+     */
+    private void relocate(CacheKey key, Routing<T> written, CacheNode<T> owner) {
+        Routing<T> current = routing;
+        while (current != written) {
+            CacheNode<T> currentOwner = current.owner(key);
+            if (currentOwner != owner) {
+                owner.moveTo(key, currentOwner, true);
+                owner = currentOwner;
+            }
+            written = current;
+            current = routing;
+        }
+    }
+
+    /**
+     * Looks up all the keys with one batch per node and returns the hits. While nodes are being added or removed
+     * the keys are looked up one by one.
+     */
+    public <S extends T> Map<Object, T> getAll(Collection<?> keyObjects, Class<S> clazz) {
+        Map<Object, T> result = new LinkedHashMap<>();
+        Routing<T> current = routing;
+        if (current.previous != null) {
+            keyObjects.forEach(keyObject -> addIfPresent(result, keyObject, get(keyObject, clazz)));
+            return result;
+        }
+        Collection<Batch<T>> batches = groupByOwner(current, keyObjects, clazz);
+        forEachBatch(batches, keyObjects.size(), batch -> batch.values = batch.node.getAll(batch.keys));
+        for (Batch<T> batch : batches) {
+            for (int i = 0; i < batch.keys.size(); i++) {
+                addIfPresent(result, batch.keyObjects.get(i), batch.values.get(i));
+            }
+        }
+        return result;
+    }
+
+    public <S extends T> void putAll(Map<?, S> entries) {
+        Routing<T> current = routing;
+        if (current.previous != null) {
+            entries.forEach(this::put);
+            return;
+        }
+        Map<CacheNode<T>, Batch<T>> batches = new IdentityHashMap<>();
+        entries.forEach((keyObject, value) -> {
+            CacheKey key = getKeyFromObject(keyObject, value.getClass());
+            if (key != null) {
+                batches.computeIfAbsent(current.owner(key), Batch::new).add(keyObject, key, value);
+            }
+        });
+        forEachBatch(batches.values(), entries.size(), batch -> batch.node.putAll(batch.keys, batch.values));
+        if (routing != current) {
+            batches.values().forEach(batch -> batch.keys.forEach(key -> relocate(key, current, batch.node)));
+        }
+    }
+
+    public Map<Object, T> removeAll(Collection<?> keyObjects, Class<T> clazz) {
+        Map<Object, T> result = new LinkedHashMap<>();
+        Routing<T> current = routing;
+        if (current.previous != null) {
+            keyObjects.forEach(keyObject -> addIfPresent(result, keyObject, remove(keyObject, clazz)));
+            return result;
+        }
+        Collection<Batch<T>> batches = groupByOwner(current, keyObjects, clazz);
+        forEachBatch(batches, keyObjects.size(), batch -> batch.values = batch.node.removeAll(batch.keys));
+        for (Batch<T> batch : batches) {
+            for (int i = 0; i < batch.keys.size(); i++) {
+                addIfPresent(result, batch.keyObjects.get(i), batch.values.get(i));
+            }
+        }
+        return result;
+    }
+
+    private Collection<Batch<T>> groupByOwner(Routing<T> current, Collection<?> keyObjects, Class<?> clazz) {
+        Map<CacheNode<T>, Batch<T>> batches = new IdentityHashMap<>();
+        for (Object keyObject : keyObjects) {
+            CacheKey key = getKeyFromObject(keyObject, clazz);
+            if (key != null) {
+                batches.computeIfAbsent(current.owner(key), Batch::new).add(keyObject, key, null);
+            }
+        }
+        return batches.values();
+    }
+
+    /**
+     * Large requests spread over several nodes apply their batches in parallel.
+     */
+    private void forEachBatch(Collection<Batch<T>> batches, int size, Consumer<Batch<T>> action) {
+        if (size >= PARALLEL_BATCH_SIZE && batches.size() > 1) {
+            batches.parallelStream().forEach(action);
+        } else {
+            batches.forEach(action);
+        }
+    }
+
+    private static <T> void addIfPresent(Map<Object, T> result, Object keyObject, T value) {
+        if (value != null) {
+            result.put(keyObject, value);
+        }
+    }
+
+    /**
+     * Asynchronous view of this manager running on the executor the factory was given, virtual threads by default.
+     */
+    public AsyncCacheManager<Object, T> async() {
+        return asyncView;
+    }
+
+    public AsyncCacheManager<Object, T> async(Executor executor) {
+        return new AsyncByteStashManager<>(this, executor);
+    }
+
+    /**
+     * Loading view without load timeout and without negative caching.
+     */
+    public LoadingCacheManager<Object, T> loading() {
+        return loading(null, null);
+    }
+
+    /**
+     * Loading view whose loads fail after loadTimeout and whose empty loads are remembered for negativeTtl,
+     * null disables either.
+     */
+    public LoadingCacheManager<Object, T> loading(Duration loadTimeout, Duration negativeTtl) {
+        return new LoadingByteStashManager<>(this, asyncView.getExecutor(), loadTimeout, negativeTtl);
+    }
+
+    /**
+     * Statistics of all the nodes summed up, with the depth of the crawl queue and the lag of the crawler.
+     */
+    public StatsSnapshot getStats() {
+        StatsSnapshot stats = StatsSnapshot.builder()
+                                      .withCrawlerLag(crawlerManager.getCrawlerLag())
+                                      .withQueueDepth(queueHandler.size())
+                                      .withQueueCoalescedCount(queueHandler.getCoalescedCount())
+                                      .withQueueDroppedCount(queueHandler.getDroppedCount())
+                                      .build();
+        for (CacheNode<T> node : nodes) {
+            stats = stats.plus(node.getStats());
+        }
+        return stats;
+    }
+
+    public List<StatsSnapshot> getNodeStats() {
+        List<StatsSnapshot> stats = new ArrayList<>(nodes.size());
+        nodes.forEach(node -> stats.add(node.getStats()));
+        return stats;
+    }
+
+    /**
+     * Registers MBeans for the cache and for every node under org.bytestash with the given name, nodes added
+     * or removed later are registered and unregistered with them.
+     */
+    public synchronized void registerMBeans(String name) {
+        jmxName = name;
+        try {
+            StatsBean.register(StatsBean.cacheName(name), this::getStats);
+        } catch (JMException e) {
+            logger.error("Unable to register MBean for {}", name, e);
+        }
+        nodes.forEach(this::registerMBean);
+    }
+
+    public synchronized void unregisterMBeans() {
+        String name = jmxName;
+        if (name == null) {
+            return;
+        }
+        nodes.forEach(this::unregisterMBean);
+        try {
+            StatsBean.unregister(StatsBean.cacheName(name));
+        } catch (JMException e) {
+            logger.error("Unable to unregister MBean for {}", name, e);
+        }
+        jmxName = null;
+    }
+
+    private void registerMBean(CacheNode<T> node) {
+        ObjectName name = nodeObjectName(node);
+        if (name != null) {
+            StatsBean.register(name, node::getStats);
+        }
+    }
+
+    private void unregisterMBean(CacheNode<T> node) {
+        ObjectName name = nodeObjectName(node);
+        if (name != null) {
+            StatsBean.unregister(name);
         }
     }
 
-    private String getKeyFromObject(Object keyObject, Class<?> clazz) {
-        String key = null;
+    private ObjectName nodeObjectName(CacheNode<T> node) {
+        String name = jmxName;
+        if (name == null) {
+            return null;
+        }
         try {
-            key = generateKey(keyObject, clazz);
-        } catch (IOException | NoSuchAlgorithmException e) {
+            return StatsBean.nodeName(name, node.getIndex());
+        } catch (JMException e) {
+            logger.error("Unable to name MBean of node {} for {}", node.getIndex(), name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes all the entries with their remaining ttl, region and recency order to the file, one node per task.
+     * Keys are written with java serialization, values with the serializer of the nodes when they have one.
+     * Returns the number of entries written.
+     */
+    public long snapshot(Path file) throws IOException {
+        return snapshot(file, new JavaSerializer<>(), defaultValueSerializer());
+    }
+
+    public long snapshot(Path file, ValueSerializer<Object> keySerializer, ValueSerializer<T> valueSerializer) throws IOException {
+        return CacheSnapshots.write(file, new ArrayList<>(nodes), keySerializer, valueSerializer, asyncView.getExecutor());
+    }
+
+    /**
+     * Loads a snapshot taken with {@link #snapshot(Path)}, entries are routed to their current owner so the
+     * node count may differ from the one the snapshot was taken with. Entries already in the cache are kept.
+     * Returns the number of entries read that had not expired.
+     */
+    public long restore(Path file) throws IOException {
+        return restore(file, new JavaSerializer<>(), defaultValueSerializer());
+    }
+
+    public long restore(Path file, ValueSerializer<Object> keySerializer, ValueSerializer<T> valueSerializer) throws IOException {
+        return CacheSnapshots.read(file, keySerializer, valueSerializer, (keyObject, valueClass, value, region, ttlNanos, fixedExpiry) -> {
+            CacheKey key = keyCodecs.encode(keyObject, valueClass == null ? value.getClass() : valueClass);
+            routing.owner(key).restore(key, value, region, ttlNanos, fixedExpiry);
+        }, asyncView.getExecutor());
+    }
+
+    private ValueSerializer<T> defaultValueSerializer() {
+        return nodeConfig.getValueSerializer() != null ? nodeConfig.getValueSerializer() : new JavaSerializer<>();
+    }
+
+    /**
+     * Loads the encoded key through its owner. While nodes are being added or removed an entry still on the
+     * previous owner is moved over first instead of being loaded again.
+     */
+    CompletableFuture<T> getOrLoad(CacheKey key, Supplier<? extends CompletableFuture<? extends T>> loader,
+                                   long timeoutNanos, long negativeTtlNanos) {
+        Routing<T> current = routing;
+        CacheNode<T> owner = current.owner(key);
+        CacheNode<T> previousOwner = current.previousOwner(key, owner);
+        if (previousOwner != null) {
+            T value = previousOwner.moveTo(key, owner);
+            if (value != null) {
+                return CompletableFuture.completedFuture(value);
+            }
+        }
+        return owner.getOrLoad(key, loader, timeoutNanos, negativeTtlNanos);
+    }
+
+    public int getNodeCount() {
+        return routing.router.getNodeCount();
+    }
+
+    /**
+     * Adds a node at runtime, keys owned by the new node are moved in the background. Returns a future
+     * that completes once the migration is over.
+     */
+    public synchronized CompletableFuture<Void> addNode() {
+        migration.join();
+        int nodeCount = routing.router.getNodeCount();
+        CacheNode<T> node = createNode(nodeCount);
+        nodes.add(node);
+        crawlerManager.addCrawlable(node);
+        registerMBean(node);
+        return resize(nodeCount + 1);
+    }
+
+    /**
+     * Removes the last node at runtime, its keys are moved to the remaining nodes in the background before
+     * the node is dropped.
+     */
+    public synchronized CompletableFuture<Void> removeNode() {
+        migration.join();
+        int nodeCount = routing.router.getNodeCount();
+        if (nodeCount <= 1) {
+            throw new IllegalStateException("Cannot remove the last CacheNode");
+        }
+        return resize(nodeCount - 1);
+    }
+
+    private CompletableFuture<Void> resize(int nodeCount) {
+        NodeRouter previous = routing.router;
+        routing = new Routing<>(previous.resize(nodeCount), previous, nodes);
+        logger.debug("Resizing from {} to {} CacheNodes", previous.getNodeCount(), nodeCount);
+        migration = CompletableFuture.runAsync(() -> migrateKeys(previous.getNodeCount()), migrationExecutor);
+        return migration;
+    }
+
+    private void migrateKeys(int previousNodeCount) {
+        NodeRouter router = routing.router;
+        long moved = 0;
+        for (int i = 0; i < previousNodeCount; i++) {
+            moved += nodes.get(i).migrate(key -> nodes.get(router.route(key.hashCode())), MIGRATION_BATCH_SIZE,
+                    () -> LockSupport.parkNanos(MIGRATION_PAUSE_NANOS));
+        }
+        List<CacheNode<T>> previousNodes = new ArrayList<>(nodes.subList(0, previousNodeCount));
+        List<CacheNode<T>> removedNodes = new ArrayList<>(nodes.subList(router.getNodeCount(), nodes.size()));
+        nodes.removeAll(removedNodes);
+        routing = new Routing<>(router, null, nodes);
+        for (CacheNode<T> node : previousNodes) {
+            moved += node.migrateRemaining(key -> nodes.get(router.route(key.hashCode())));
+        }
+        removedNodes.forEach(node -> {
+            crawlerManager.removeCrawlable(node);
+            unregisterMBean(node);
+            node.shutdown();
+        });
+        logger.debug("Migrated {} keys to {} CacheNodes", moved, router.getNodeCount());
+    }
+
+    /**
+     * Waits for a running migration, stops crawling and shuts the nodes down, which deletes the files of their
+     * disk tiers. The manager cannot be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        migrationExecutor.shutdown();
+        migration.exceptionally(e -> null).join();
+        crawlerManager.stopTaskScheduler();
+        unregisterMBeans();
+        for (CacheNode<T> node : nodes) {
+            crawlerManager.removeCrawlable(node);
+            node.shutdown();
+        }
+        logger.debug("Closed {} CacheNodes", nodes.size());
+    }
+
+    CacheKey getKeyFromObject(Object keyObject, Class<?> clazz) {
+        if (keyObject == null) {
+            logger.error("Null key Object is not supported");
+            return null;
+        }
+        CacheKey key = null;
+        try {
+            key = keyCodecs.encode(keyObject, clazz);
+        } catch (IOException e) {
             logger.error("Unable to hash the key Object {}", keyObject);
         }
         return key;
     }
 
-    private String generateKey(Object keyObject, Class<?> clazz) throws IOException, NoSuchAlgorithmException {
-        byte[] objectBytes = objectMapper.writeValueAsBytes(keyObject);
-        String className = clazz.getName();
-        byte[] combinedBytes = new byte[className.length() + objectBytes.length];
-        System.arraycopy(className.getBytes(), 0, combinedBytes, 0, className.length());
-        System.arraycopy(objectBytes, 0, combinedBytes, className.length(), objectBytes.length);
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hashBytes = digest.digest(combinedBytes);
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hashBytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) hexString.append('0');
-            hexString.append(hex);
+    /**
+     * Keys, key objects and values of one multi-key call that belong to the same node.
+     */
+    private static final class Batch<T> {
+        private final CacheNode<T> node;
+        private final List<Object> keyObjects = new ArrayList<>();
+        private final List<CacheKey> keys = new ArrayList<>();
+        private List<T> values = new ArrayList<>();
+
+        private Batch(CacheNode<T> node) {
+            this.node = node;
+        }
+
+        private void add(Object keyObject, CacheKey key, T value) {
+            keyObjects.add(keyObject);
+            keys.add(key);
+            values.add(value);
         }
-        return hexString.toString();
     }
 
-    private int getNodeFromKey(String key) {
-        int hashCode = key.hashCode();
-        return Math.abs(hashCode) % numNodes;
+    /**
+     * Router, the router before an ongoing resize and the nodes both can point to, swapped as one unit.
+     */
+    private static final class Routing<T> {
+        private final NodeRouter router;
+        private final NodeRouter previous;
+        private final List<CacheNode<T>> nodes;
+
+        private Routing(NodeRouter router, NodeRouter previous, List<CacheNode<T>> nodes) {
+            this.router = router;
+            this.previous = previous;
+            this.nodes = List.copyOf(nodes);
+        }
+
+        private CacheNode<T> owner(CacheKey key) {
+            return nodes.get(router.route(key.hashCode()));
+        }
+
+        private CacheNode<T> previousOwner(CacheKey key, CacheNode<T> owner) {
+            if (previous == null) {
+                return null;
+            }
+            CacheNode<T> node = nodes.get(previous.route(key.hashCode()));
+            return node != owner ? node : null;
+        }
     }
 }
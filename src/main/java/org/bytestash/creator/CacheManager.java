@@ -1,9 +1,16 @@
 package org.bytestash.creator;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
 
 public interface CacheManager<Q,T>{
     <S extends T> T get(Q keyObject, Class<S> clazz);
     T remove(Q keyObject, Class<T> clazz) throws IOException;
     <S extends T> void put(Q keyObject, S value);
+    <S extends T> void put(Q keyObject, S value, Duration ttl);
+    <S extends T> Map<Q, T> getAll(Collection<? extends Q> keyObjects, Class<S> clazz);
+    <S extends T> void putAll(Map<? extends Q, S> entries);
+    Map<Q, T> removeAll(Collection<? extends Q> keyObjects, Class<T> clazz);
 }
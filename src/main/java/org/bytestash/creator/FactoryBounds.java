@@ -0,0 +1,24 @@
+package org.bytestash.creator;
+
+/**
+ * Bounds of the settings shared by the cache factories, a missing value takes the minimum and a value out of
+ * bounds is clamped.
+ */
+final class FactoryBounds {
+
+    static final long MIN_CAPACITY = 10L;
+    static final int MIN_QUEUE_SIZE = 1000;
+    static final int MAX_QUEUE_SIZE = 1000000;
+    static final int MIN_TTL = 30;
+    static final int MAX_TTL = 5 * 60;
+    static final Integer MAX_NODES = 256;
+    static final Integer MIN_NODES = 1;
+
+    private FactoryBounds() {
+
+    }
+
+    static <S extends Comparable<S>> S getValidValue(S value, S min, S max) {
+        return value == null ? min : (value.compareTo(min) >= 0 && value.compareTo(max) <= 0) ? value : (value.compareTo(min) < 0 ? min : max);
+    }
+}
@@ -0,0 +1,61 @@
+package org.bytestash.creator;
+
+import org.bytestash.key.CacheKey;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Loads through the pending load table of the node owning the key. Synchronous loaders run on the async
+ * executor of the manager so the load timeout applies to every caller waiting for it.
+ */
+class LoadingByteStashManager<T> implements LoadingCacheManager<Object, T> {
+
+    private final ByteStashManager<T> manager;
+
+    private final Executor executor;
+
+    private final long timeoutNanos;
+
+    private final long negativeTtlNanos;
+
+    LoadingByteStashManager(ByteStashManager<T> manager, Executor executor, Duration loadTimeout, Duration negativeTtl) {
+        this.manager = manager;
+        this.executor = executor;
+        this.timeoutNanos = loadTimeout == null ? 0 : loadTimeout.toNanos();
+        this.negativeTtlNanos = negativeTtl == null ? 0 : negativeTtl.toNanos();
+    }
+
+    @Override
+    public <S extends T> T get(Object keyObject, Class<S> clazz, Function<Object, ? extends S> loader) {
+        try {
+            return getAsync(keyObject, clazz, key -> CompletableFuture.supplyAsync(() -> loader.apply(key), executor)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public <S extends T> CompletableFuture<T> getAsync(Object keyObject, Class<S> clazz,
+                                                       Function<Object, ? extends CompletableFuture<? extends S>> loader) {
+        CacheKey key = manager.getKeyFromObject(keyObject, clazz);
+        if (key == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return manager.getOrLoad(key, () -> loader.apply(keyObject), timeoutNanos, negativeTtlNanos);
+    }
+
+    @Override
+    public ByteStashManager<T> synchronous() {
+        return manager;
+    }
+}
@@ -0,0 +1,18 @@
+package org.bytestash.creator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * CacheManager view that loads missing values, concurrent misses on one key share a single load.
+ */
+public interface LoadingCacheManager<Q, T> {
+    /**
+     * Returns the cached value or loads it. A RuntimeException or Error of the loader is rethrown as is, a
+     * timed out load is thrown as a CompletionException caused by a TimeoutException.
+     */
+    <S extends T> T get(Q keyObject, Class<S> clazz, Function<? super Q, ? extends S> loader);
+    <S extends T> CompletableFuture<T> getAsync(Q keyObject, Class<S> clazz, Function<? super Q, ? extends CompletableFuture<? extends S>> loader);
+
+    CacheManager<Q, T> synchronous();
+}
@@ -0,0 +1,30 @@
+package org.bytestash.creator;
+
+import lombok.Builder;
+import org.bytestash.crawler.CrawlerPoolType;
+import org.bytestash.router.RouterType;
+import org.bytestash.taskhandler.OverflowPolicy;
+import org.bytestash.taskhandler.TaskQueueHandler;
+
+/**
+ * Builds a {@link LongKeyCacheManager}, with the same bounds as {@link ByteStashFactory}. Expiry is always
+ * crawled by the TTL crawler, the nodes do not keep a timer wheel.
+ */
+public class LongKeyCacheFactory<T> {
+
+
+    private final LongKeyCacheManager<T> cache;
+
+    @Builder(setterPrefix = "with")
+    public LongKeyCacheFactory(Integer nodes, Long capacity, Float hotPercent, Float warmPercent, Integer timeToLive, Integer queueSize, RouterType routerType, OverflowPolicy overflowPolicy, CrawlerPoolType crawlerPool) {
+        int nodesVal = FactoryBounds.getValidValue(nodes, FactoryBounds.MIN_NODES, FactoryBounds.MAX_NODES);
+        long capacityVal = FactoryBounds.getValidValue(capacity, FactoryBounds.MIN_CAPACITY, Long.MAX_VALUE);
+        int ttl = FactoryBounds.getValidValue(timeToLive, FactoryBounds.MIN_TTL, FactoryBounds.MAX_TTL);
+        int qSize = FactoryBounds.getValidValue(queueSize, FactoryBounds.MIN_QUEUE_SIZE, FactoryBounds.MAX_QUEUE_SIZE);
+        this.cache = new LongKeyCacheManager<>(nodesVal, Math.max(capacityVal, nodesVal), hotPercent, warmPercent, ttl, new TaskQueueHandler(qSize, overflowPolicy), crawlerPool == null ? CrawlerPoolType.FORK_JOIN : crawlerPool, routerType);
+    }
+
+    public LongKeyCacheManager<T> create() {
+        return cache;
+    }
+}
@@ -0,0 +1,85 @@
+package org.bytestash.creator;
+
+import org.bytestash.cache.LongKeyCacheNode;
+import org.bytestash.crawler.CrawlerManager;
+import org.bytestash.crawler.CrawlerPoolType;
+import org.bytestash.crawler.CrawlerType;
+import org.bytestash.router.NodeRouter;
+import org.bytestash.router.RouterType;
+import org.bytestash.stats.StatsSnapshot;
+import org.bytestash.taskhandler.TaskQueueHandler;
+import org.bytestash.util.CacheUtil;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cache of primitive long keys spread over {@link LongKeyCacheNode}s. Lookups go from the key straight to the
+ * node and its table, without a CacheKey, a boxed Long or a codec on the way.
+ */
+public class LongKeyCacheManager<T> {
+
+    private final List<LongKeyCacheNode<T>> nodes;
+    private final NodeRouter router;
+    private final TaskQueueHandler queueHandler;
+    final CrawlerManager<T> crawlerManager;
+
+    LongKeyCacheManager(int nodesCount, long capacity, Float hotPercent, Float warmPercent, int timeToLive, TaskQueueHandler queueHandler, CrawlerPoolType crawlerPool, RouterType routerType) {
+        this.queueHandler = queueHandler;
+        int capacityPerNode = (int) Math.min(capacity / nodesCount, (1 << 29) - 1);
+        List<LongKeyCacheNode<T>> created = new ArrayList<>(nodesCount);
+        for (int i = 0; i < nodesCount; i++) {
+            created.add(new LongKeyCacheNode<>(capacityPerNode, hotPercent == null ? 0f : hotPercent, warmPercent == null ? 0f : warmPercent, timeToLive, i));
+        }
+        this.nodes = Collections.unmodifiableList(created);
+        this.router = CacheUtil.getNodeRouterFromType(routerType, nodesCount);
+        this.crawlerManager = CacheUtil.getCrawlerManagerFromType(CrawlerType.TTL, nodes, nodesCount / 4 + 1, queueHandler, crawlerPool);
+    }
+
+    public T get(long key) {
+        return nodeFor(key).get(key);
+    }
+
+    public void put(long key, T value) {
+        nodeFor(key).put(key, value);
+    }
+
+    public void put(long key, T value, Duration ttl) {
+        nodeFor(key).put(key, value, ttl);
+    }
+
+    public T remove(long key) {
+        return nodeFor(key).remove(key);
+    }
+
+    private LongKeyCacheNode<T> nodeFor(long key) {
+        return nodes.get(router.route((int) (LongKeyCacheNode.mix(key) >>> 32)));
+    }
+
+    public List<LongKeyCacheNode<T>> getNodes() {
+        return nodes;
+    }
+
+    public long size() {
+        long size = 0;
+        for (LongKeyCacheNode<T> node : nodes) {
+            size += node.getFilledCapacity();
+        }
+        return size;
+    }
+
+    public StatsSnapshot getStats() {
+        StatsSnapshot stats = StatsSnapshot.builder()
+                                      .withCrawlerLag(crawlerManager.getCrawlerLag())
+                                      .withQueueDepth(queueHandler.size())
+                                      .withQueueCoalescedCount(queueHandler.getCoalescedCount())
+                                      .withQueueDroppedCount(queueHandler.getDroppedCount())
+                                      .build();
+        for (LongKeyCacheNode<T> node : nodes) {
+            stats = stats.plus(node.getStats());
+        }
+        return stats;
+    }
+}
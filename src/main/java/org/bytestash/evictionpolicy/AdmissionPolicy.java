@@ -0,0 +1,12 @@
+package org.bytestash.evictionpolicy;
+
+/**
+ * Decides whether an entry leaving the HOT region without being read gets into the main regions.
+ */
+public enum AdmissionPolicy {
+    ALWAYS,
+    /**
+     * The entry only replaces the oldest COLD entry when it was asked for more often, see {@link FrequencySketch}.
+     */
+    TINY_LFU
+}
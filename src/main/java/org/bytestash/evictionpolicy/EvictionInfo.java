@@ -1,5 +1,19 @@
 package org.bytestash.evictionpolicy;
 
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome of crawling a region. Incremental crawls report the progress of the current pass, the crawl of the
+ * region is complete once done is set.
+ */
+@Getter
+@Setter
 public abstract class EvictionInfo {
 
+    private long scanned;
+
+    private long removed;
+
+    private boolean done = true;
 }
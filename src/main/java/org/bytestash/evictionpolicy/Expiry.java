@@ -0,0 +1,62 @@
+package org.bytestash.evictionpolicy;
+
+import java.time.Duration;
+
+/**
+ * Decides how long an entry lives. Every method returns the remaining lifetime in nanoseconds starting at
+ * currentTime, currentDuration is the lifetime the entry had left before the event.
+ */
+public interface Expiry<K, V> {
+
+    long expireAfterCreate(K key, V value, long currentTime);
+
+    long expireAfterUpdate(K key, V value, long currentTime, long currentDuration);
+
+    long expireAfterRead(K key, V value, long currentTime, long currentDuration);
+
+    /**
+     * Entries expire the given time after they were created or last updated, reads do not extend them.
+     */
+    static <K, V> Expiry<K, V> afterWrite(Duration ttl) {
+        long nanos = ttl.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Entries expire the given time after they were last written or read.
+     */
+    static <K, V> Expiry<K, V> afterAccess(Duration ttl) {
+        long nanos = ttl.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(K key, V value, long currentTime) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                return nanos;
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package org.bytestash.evictionpolicy;
+
+import java.util.Arrays;
+
+/**
+ * Approximate access frequency of keys for TinyLFU admission: a Count-Min sketch of 4-bit counters, 16 per
+ * long and 4 rows, behind a doorkeeper Bloom filter that absorbs the first access of every key so one-hit
+ * keys never reach the counters. After a sample of accesses ten times the size of the sketch all counters are
+ * halved and the doorkeeper is cleared, so old popularity fades.
+ * <p>
+ * It is updated without synchronization from reading threads, lost updates only make estimates lower.
+ */
+public class FrequencySketch {
+    private static final long[] SEED = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_SIZE = 1 << 20;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final long[] doorkeeper;
+
+    private final int doorkeeperMask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    /**
+     * Sized for the given number of entries, capped at 8MB of counters.
+     */
+    public FrequencySketch(long maximumSize) {
+        int entries = (int) Math.min(Math.max(maximumSize, 16), MAX_TABLE_SIZE);
+        int tableSize = Integer.highestOneBit(entries - 1) << 1;
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        doorkeeper = new long[tableSize / 4];
+        doorkeeperMask = doorkeeper.length * Long.SIZE - 1;
+        sampleSize = 10 * tableSize;
+    }
+
+    public int frequency(int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency + (inDoorkeeper(hash) ? 1 : 0);
+    }
+
+    public void increment(int hash) {
+        if (addToDoorkeeper(hash)) {
+            countSample();
+            return;
+        }
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added) {
+            countSample();
+        }
+    }
+
+    private void countSample() {
+        if (++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    /**
+     * Returns true when the key was not in the doorkeeper yet.
+     */
+    private boolean addToDoorkeeper(int hash) {
+        boolean added = false;
+        for (int i = 0; i < 2; i++) {
+            int bit = doorkeeperBit(hash, i);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            if ((doorkeeper[word] & mask) == 0) {
+                doorkeeper[word] |= mask;
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    private boolean inDoorkeeper(int hash) {
+        for (int i = 0; i < 2; i++) {
+            int bit = doorkeeperBit(hash, i);
+            if ((doorkeeper[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int doorkeeperBit(int hash, int i) {
+        long h = (hash + SEED[3 - i]) * SEED[3 - i];
+        return (int) (h >>> 32) & doorkeeperMask;
+    }
+
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        Arrays.fill(doorkeeper, 0L);
+        size = Math.max(0, (size >>> 1) - (count >>> 2));
+    }
+}
@@ -5,11 +5,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import java.sql.Timestamp;
+/**
+ * Earliest expiration time left in a crawled region, in nanoseconds of the ticker of the crawled node.
+ */
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class TimeStampBasedEvictionInfo extends EvictionInfo {
-        Timestamp oldestTimeStamp;
+        long nextExpiration;
 }
@@ -0,0 +1,59 @@
+package org.bytestash.key;
+
+/**
+ * Lookup key stored in the nodes, the hash is computed once by the {@link KeyCodec} and reused
+ * for routing as well as for the node maps.
+ */
+public final class CacheKey {
+
+    private final Object key;
+
+    private final Class<?> valueClass;
+
+    private final int hash;
+
+    public CacheKey(Object key, Class<?> valueClass, int keyHash) {
+        this.key = key;
+        this.valueClass = valueClass;
+        this.hash = spread(keyHash * 31 + valueClass.getName().hashCode());
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Class<?> getValueClass() {
+        return valueClass;
+    }
+
+    public static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        return hash == other.hash && valueClass == other.valueClass && key.equals(other.key);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheKey{" + "key=" + key + ", valueClass=" + valueClass.getSimpleName() + '}';
+    }
+}
@@ -0,0 +1,29 @@
+package org.bytestash.key;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Keys whose class defines its own equals, the user's hashCode and equals are used as is. The key is stored by
+ * reference, so it must not change while it is in the cache. Collections and maps are left to
+ * {@link JacksonKeyCodec}, which keeps their json form as it was when they were used.
+ */
+public class HashCodeKeyCodec implements KeyCodec<Object> {
+
+    @Override
+    public boolean supports(Class<?> keyClass) {
+        if (Collection.class.isAssignableFrom(keyClass) || Map.class.isAssignableFrom(keyClass)) {
+            return false;
+        }
+        try {
+            return keyClass.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public CacheKey encode(Object key, Class<?> valueClass) {
+        return new CacheKey(key, valueClass, key.hashCode());
+    }
+}
@@ -0,0 +1,42 @@
+package org.bytestash.key;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fallback for keys without equals, the key is compared by the SHA-256 digest of its json form.
+ */
+public class JacksonKeyCodec implements KeyCodec<Object> {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ThreadLocal<MessageDigest> digest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    @Override
+    public boolean supports(Class<?> keyClass) {
+        return true;
+    }
+
+    @Override
+    public CacheKey encode(Object key, Class<?> valueClass) throws IOException {
+        byte[] hashBytes = digest.get().digest(objectMapper.writeValueAsBytes(key));
+        char[] hex = new char[hashBytes.length * 2];
+        for (int i = 0; i < hashBytes.length; i++) {
+            hex[2 * i] = HEX[(hashBytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[hashBytes[i] & 0xf];
+        }
+        String digestKey = new String(hex);
+        return new CacheKey(digestKey, valueClass, digestKey.hashCode());
+    }
+}
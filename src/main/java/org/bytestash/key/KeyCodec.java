@@ -0,0 +1,14 @@
+package org.bytestash.key;
+
+import java.io.IOException;
+
+/**
+ * Turns a user supplied key object into the {@link CacheKey} used for routing and lookup.
+ * Codecs are tried in registration order, the first one that supports the key class wins.
+ */
+public interface KeyCodec<K> {
+
+    boolean supports(Class<?> keyClass);
+
+    CacheKey encode(K key, Class<?> valueClass) throws IOException;
+}
@@ -0,0 +1,43 @@
+package org.bytestash.key;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeyCodecs {
+
+    private final List<KeyCodec<?>> codecs;
+
+    private final ClassValue<KeyCodec<Object>> codecByClass = new ClassValue<>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected KeyCodec<Object> computeValue(Class<?> type) {
+            for (KeyCodec<?> codec : codecs) {
+                if (codec.supports(type)) {
+                    return (KeyCodec<Object>) codec;
+                }
+            }
+            throw new IllegalArgumentException("No KeyCodec found for " + type.getName());
+        }
+    };
+
+    public KeyCodecs(List<KeyCodec<?>> customCodecs) {
+        codecs = new ArrayList<>();
+        if (customCodecs != null) {
+            codecs.addAll(customCodecs);
+        }
+        codecs.add(new StringKeyCodec());
+        codecs.add(new PrimitiveKeyCodec());
+        codecs.add(new RecordKeyCodec());
+        codecs.add(new HashCodeKeyCodec());
+        codecs.add(new JacksonKeyCodec());
+    }
+
+    public static KeyCodecs defaults() {
+        return new KeyCodecs(null);
+    }
+
+    public CacheKey encode(Object key, Class<?> valueClass) throws IOException {
+        return codecByClass.get(key.getClass()).encode(key, valueClass);
+    }
+}
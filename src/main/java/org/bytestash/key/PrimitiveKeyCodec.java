@@ -0,0 +1,23 @@
+package org.bytestash.key;
+
+/**
+ * Boxed primitives. Integral numbers are stored as their long value, so 5 and 5L are the same key like they were
+ * with the json form. Floating point, char and boolean keys keep their own type.
+ */
+public class PrimitiveKeyCodec implements KeyCodec<Object> {
+
+    @Override
+    public boolean supports(Class<?> keyClass) {
+        return keyClass == Long.class || keyClass == Integer.class || keyClass == Short.class || keyClass == Byte.class
+                       || keyClass == Double.class || keyClass == Float.class || keyClass == Character.class
+                       || keyClass == Boolean.class;
+    }
+
+    @Override
+    public CacheKey encode(Object key, Class<?> valueClass) {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            key = ((Number) key).longValue();
+        }
+        return new CacheKey(key, valueClass, key.hashCode());
+    }
+}
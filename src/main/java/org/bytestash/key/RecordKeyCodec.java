@@ -0,0 +1,14 @@
+package org.bytestash.key;
+
+public class RecordKeyCodec implements KeyCodec<Record> {
+
+    @Override
+    public boolean supports(Class<?> keyClass) {
+        return keyClass.isRecord();
+    }
+
+    @Override
+    public CacheKey encode(Record key, Class<?> valueClass) {
+        return new CacheKey(key, valueClass, key.hashCode());
+    }
+}
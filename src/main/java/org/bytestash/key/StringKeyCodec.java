@@ -0,0 +1,14 @@
+package org.bytestash.key;
+
+public class StringKeyCodec implements KeyCodec<String> {
+
+    @Override
+    public boolean supports(Class<?> keyClass) {
+        return String.class == keyClass;
+    }
+
+    @Override
+    public CacheKey encode(String key, Class<?> valueClass) {
+        return new CacheKey(key, valueClass, key.hashCode());
+    }
+}
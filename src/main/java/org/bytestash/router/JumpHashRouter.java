@@ -0,0 +1,40 @@
+package org.bytestash.router;
+
+/**
+ * Jump consistent hash (Lamping and Veach), growing from n to n + 1 nodes moves only 1/(n + 1)
+ * of the keys and all of them go to the new node.
+ */
+public class JumpHashRouter implements NodeRouter {
+
+    private final int nodeCount;
+
+    public JumpHashRouter(int nodeCount) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("Router needs at least one node");
+        }
+        this.nodeCount = nodeCount;
+    }
+
+    @Override
+    public int route(int hash) {
+        long key = hash & 0xffffffffL;
+        long b = -1;
+        long j = 0;
+        while (j < nodeCount) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public NodeRouter resize(int nodeCount) {
+        return new JumpHashRouter(nodeCount);
+    }
+}
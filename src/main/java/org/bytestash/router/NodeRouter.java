@@ -0,0 +1,14 @@
+package org.bytestash.router;
+
+/**
+ * Maps the hash of a key to the index of the node that owns it. Routers are immutable, a resize
+ * returns a new router so the old one can still be consulted while keys migrate.
+ */
+public interface NodeRouter {
+
+    int route(int hash);
+
+    int getNodeCount();
+
+    NodeRouter resize(int nodeCount);
+}
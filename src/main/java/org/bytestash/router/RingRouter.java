@@ -0,0 +1,67 @@
+package org.bytestash.router;
+
+import org.bytestash.key.CacheKey;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hash ring with a fixed number of virtual nodes per node.
+ */
+public class RingRouter implements NodeRouter {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int nodeCount;
+
+    private final int virtualNodes;
+
+    private final int[] points;
+
+    private final int[] owners;
+
+    public RingRouter(int nodeCount) {
+        this(nodeCount, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public RingRouter(int nodeCount, int virtualNodes) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("Router needs at least one node");
+        }
+        this.nodeCount = nodeCount;
+        this.virtualNodes = virtualNodes;
+        long[] ring = new long[nodeCount * virtualNodes];
+        int pos = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                int point = CacheKey.spread(node * 0x9E3779B9 + CacheKey.spread(replica + 1));
+                ring[pos++] = ((long) point << 32) | node;
+            }
+        }
+        Arrays.sort(ring);
+        points = new int[ring.length];
+        owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = (int) (ring[i] >> 32);
+            owners[i] = (int) ring[i];
+        }
+    }
+
+    @Override
+    public int route(int hash) {
+        int pos = Arrays.binarySearch(points, hash);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        return owners[pos == points.length ? 0 : pos];
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public NodeRouter resize(int nodeCount) {
+        return new RingRouter(nodeCount, virtualNodes);
+    }
+}
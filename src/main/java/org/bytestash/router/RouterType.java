@@ -0,0 +1,5 @@
+package org.bytestash.router;
+
+public enum RouterType {
+    JUMP, RING
+}
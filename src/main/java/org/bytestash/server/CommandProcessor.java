@@ -0,0 +1,193 @@
+package org.bytestash.server;
+
+import org.bytestash.creator.ByteStashManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the memcached text protocol commands get, gets, set, delete, version and quit against the manager.
+ */
+final class CommandProcessor {
+    static final int MAX_LINE_LENGTH = 2048;
+    private static final int MAX_KEY_LENGTH = 250;
+    private static final long RELATIVE_EXPTIME_LIMIT = TimeUnit.DAYS.toSeconds(30);
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final ByteStashManager<StoredValue> manager;
+    private final int maxValueSize;
+    private final AtomicLong casUniques = new AtomicLong();
+
+    CommandProcessor(ByteStashManager<StoredValue> manager, int maxValueSize) {
+        this.manager = manager;
+        this.maxValueSize = maxValueSize;
+    }
+
+    /**
+     * Runs the complete commands in the buffer and leaves its position at the first incomplete one.
+     */
+    void process(ByteBuffer input, Connection connection) {
+        while (!connection.isClosing()) {
+            int start = input.position();
+            int lineEnd = findLineEnd(input, start);
+            if (lineEnd < 0) {
+                if (input.limit() - start > MAX_LINE_LENGTH) {
+                    connection.append("CLIENT_ERROR line too long\r\n");
+                    connection.closeAfterFlush();
+                }
+                return;
+            }
+            String[] tokens = tokens(input, start, lineEnd);
+            int next = lineEnd + CRLF.length;
+            if (tokens.length == 0) {
+                input.position(next);
+                connection.append("ERROR\r\n");
+                continue;
+            }
+            switch (tokens[0]) {
+                case "get" -> get(tokens, false, connection);
+                case "gets" -> get(tokens, true, connection);
+                case "set" -> {
+                    next = set(tokens, input, next, connection);
+                    if (next < 0) {
+                        input.position(start);
+                        return;
+                    }
+                }
+                case "delete" -> delete(tokens, connection);
+                case "version" -> connection.append("VERSION bytestash\r\n");
+                case "quit" -> connection.closeAfterFlush();
+                default -> connection.append("ERROR\r\n");
+            }
+            input.position(next);
+        }
+    }
+
+    private void get(String[] tokens, boolean withCas, Connection connection) {
+        if (tokens.length < 2) {
+            connection.append("ERROR\r\n");
+            return;
+        }
+        List<String> keys = Arrays.asList(tokens).subList(1, tokens.length);
+        Map<Object, StoredValue> values = keys.size() == 1
+                                          ? singleGet(keys.get(0))
+                                          : manager.getAll(keys, StoredValue.class);
+        for (String key : keys) {
+            StoredValue value = values.get(key);
+            if (value != null) {
+                connection.append("VALUE " + key + ' ' + Integer.toUnsignedString(value.getFlags()) + ' ' + value.getData().length
+                                          + (withCas ? " " + value.getCasUnique() : "") + "\r\n");
+                connection.append(value.getData());
+                connection.append(CRLF);
+            }
+        }
+        connection.append("END\r\n");
+    }
+
+    private Map<Object, StoredValue> singleGet(String key) {
+        StoredValue value = manager.get(key, StoredValue.class);
+        return value == null ? Map.of() : Map.of(key, value);
+    }
+
+    /**
+     * Returns the position after the data block, or -1 when the data block is not complete yet. A value over
+     * the size limit is refused and its data block is skipped, the connection stays open like in memcached.
+     */
+    private int set(String[] tokens, ByteBuffer input, int dataStart, Connection connection) {
+        if (tokens.length < 5 || tokens.length > 6) {
+            connection.append("ERROR\r\n");
+            return dataStart;
+        }
+        String key = tokens[1];
+        int flags;
+        long exptime;
+        int length;
+        try {
+            flags = Integer.parseUnsignedInt(tokens[2]);
+            exptime = Long.parseLong(tokens[3]);
+            length = Integer.parseInt(tokens[4]);
+        } catch (NumberFormatException e) {
+            connection.append("CLIENT_ERROR bad command line format\r\n");
+            connection.closeAfterFlush();
+            return dataStart;
+        }
+        if (length < 0 || key.length() > MAX_KEY_LENGTH) {
+            connection.append("CLIENT_ERROR bad command line format\r\n");
+            connection.closeAfterFlush();
+            return dataStart;
+        }
+        if (length > maxValueSize) {
+            connection.append("SERVER_ERROR object too large for cache\r\n");
+            long blockSize = (long) length + CRLF.length;
+            int skipped = (int) Math.min(blockSize, input.limit() - dataStart);
+            connection.discard(blockSize - skipped);
+            return dataStart + skipped;
+        }
+        int dataEnd = dataStart + length;
+        if (input.limit() - dataEnd < CRLF.length) {
+            return -1;
+        }
+        if (input.get(dataEnd) != '\r' || input.get(dataEnd + 1) != '\n') {
+            connection.append("CLIENT_ERROR bad data chunk\r\n");
+            connection.closeAfterFlush();
+            return dataEnd + CRLF.length;
+        }
+        byte[] data = new byte[length];
+        input.get(dataStart, data);
+        boolean noreply = tokens.length == 6 && "noreply".equals(tokens[5]);
+        store(key, new StoredValue(flags, data, casUniques.incrementAndGet()), exptime);
+        if (!noreply) {
+            connection.append("STORED\r\n");
+        }
+        return dataEnd + CRLF.length;
+    }
+
+    /**
+     * Exptime 0 keeps the expiry of the cache, up to 30 days it is relative in seconds and above it is a unix
+     * time. An exptime in the past removes the item.
+     */
+    private void store(String key, StoredValue value, long exptime) {
+        long seconds = exptime > RELATIVE_EXPTIME_LIMIT ? exptime - System.currentTimeMillis() / 1000 : exptime;
+        if (exptime == 0) {
+            manager.put(key, value);
+        } else if (seconds > 0) {
+            manager.put(key, value, Duration.ofSeconds(seconds));
+        } else {
+            manager.remove(key, StoredValue.class);
+        }
+    }
+
+    private void delete(String[] tokens, Connection connection) {
+        if (tokens.length < 2 || tokens.length > 3) {
+            connection.append("ERROR\r\n");
+            return;
+        }
+        boolean deleted = manager.remove(tokens[1], StoredValue.class) != null;
+        if (tokens.length == 2 || !"noreply".equals(tokens[2])) {
+            connection.append(deleted ? "DELETED\r\n" : "NOT_FOUND\r\n");
+        }
+    }
+
+    private static int findLineEnd(ByteBuffer input, int start) {
+        int end = Math.min(input.limit() - 1, start + MAX_LINE_LENGTH);
+        for (int i = start; i < end; i++) {
+            if (input.get(i) == '\r' && input.get(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String[] tokens(ByteBuffer input, int start, int end) {
+        byte[] line = new byte[end - start];
+        input.get(start, line);
+        String trimmed = new String(line, StandardCharsets.US_ASCII).trim();
+        return trimmed.isEmpty() ? new String[0] : trimmed.split(" +");
+    }
+}
@@ -0,0 +1,106 @@
+package org.bytestash.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffers of one client. Every read runs all the complete commands in the input and the responses are written
+ * in one go, while responses are pending the connection is not read so a client cannot pile them up.
+ */
+final class Connection {
+    private static final int INITIAL_BUFFER_SIZE = 16 << 10;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final CommandProcessor processor;
+    private final int maxInputSize;
+    private ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer output = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private boolean closeAfterFlush;
+    private long discard;
+
+    Connection(SocketChannel channel, SelectionKey key, CommandProcessor processor, int maxInputSize) {
+        this.channel = channel;
+        this.key = key;
+        this.processor = processor;
+        this.maxInputSize = maxInputSize;
+    }
+
+    void read() throws IOException {
+        if (channel.read(input) < 0) {
+            close();
+            return;
+        }
+        input.flip();
+        if (discard > 0) {
+            int skipped = (int) Math.min(discard, input.remaining());
+            input.position(input.position() + skipped);
+            discard -= skipped;
+        }
+        processor.process(input, this);
+        input.compact();
+        if (!input.hasRemaining()) {
+            if (input.capacity() >= maxInputSize) {
+                append("CLIENT_ERROR line too long\r\n");
+                closeAfterFlush();
+            } else {
+                input = grow(input, Math.min(maxInputSize, input.capacity() * 2));
+            }
+        }
+        flush();
+    }
+
+    void flush() throws IOException {
+        output.flip();
+        channel.write(output);
+        output.compact();
+        if (output.position() > 0) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else if (closeAfterFlush) {
+            close();
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    void append(String ascii) {
+        append(ascii.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    void append(byte[] bytes) {
+        if (output.remaining() < bytes.length) {
+            output = grow(output, Math.max(output.capacity() * 2, output.position() + bytes.length));
+        }
+        output.put(bytes);
+    }
+
+    /**
+     * Throws away the next bytes read, the part of a refused data block that is not in the input yet.
+     */
+    void discard(long bytes) {
+        discard += bytes;
+    }
+
+    void closeAfterFlush() {
+        closeAfterFlush = true;
+    }
+
+    boolean isClosing() {
+        return closeAfterFlush;
+    }
+
+    void close() throws IOException {
+        key.cancel();
+        channel.close();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
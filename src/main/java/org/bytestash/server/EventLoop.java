@@ -0,0 +1,126 @@
+package org.bytestash.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Selector thread serving its share of the connections, the first loop also accepts them.
+ */
+final class EventLoop implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(EventLoop.class);
+
+    private final Selector selector;
+    private final CommandProcessor processor;
+    private final int maxInputSize;
+    private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private MemcachedServer acceptor;
+
+    EventLoop(CommandProcessor processor, int maxInputSize) throws IOException {
+        this.selector = Selector.open();
+        this.processor = processor;
+        this.maxInputSize = maxInputSize;
+    }
+
+    void accept(ServerSocketChannel serverChannel, MemcachedServer server) throws IOException {
+        this.acceptor = server;
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Hands a new connection to this loop, it is registered on the loop thread.
+     */
+    void register(SocketChannel channel) {
+        registrations.add(channel);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                registerConnections();
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    handle(key);
+                }
+            } catch (IOException e) {
+                logger.debug("Selector loop failed with error : {}", e, e);
+            }
+        }
+        closeAll();
+    }
+
+    private void registerConnections() {
+        SocketChannel channel;
+        while ((channel = registrations.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key, processor, maxInputSize));
+            } catch (IOException e) {
+                logger.debug("Unable to register connection {} with error : {}", channel, e, e);
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+                if (channel != null) {
+                    channel.socket().setTcpNoDelay(true);
+                    acceptor.nextLoop().register(channel);
+                }
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Closing connection {} after error : {}", key.channel(), e, e);
+            key.cancel();
+            closeQuietly(key.channel());
+        }
+    }
+
+    void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        closeQuietly(selector);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            logger.debug("Unable to close {} with error : {}", closeable, e, e);
+        }
+    }
+}
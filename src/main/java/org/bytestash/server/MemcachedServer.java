@@ -0,0 +1,105 @@
+package org.bytestash.server;
+
+import lombok.Builder;
+import org.bytestash.creator.ByteStashFactory;
+import org.bytestash.creator.ByteStashManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves a ByteStashManager over TCP with the memcached text protocol, so memcached clients and tools can use
+ * it. Connections are spread over a few non-blocking selector threads, each running the commands of its
+ * connections: the cache operations are short enough not to need another hand off.
+ */
+public class MemcachedServer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(MemcachedServer.class);
+    public static final int DEFAULT_PORT = 11211;
+    private static final int DEFAULT_MAX_VALUE_SIZE = 1 << 20;
+
+    private final ByteStashManager<StoredValue> manager;
+    private final InetSocketAddress address;
+    private final int threads;
+    private final int maxValueSize;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final List<EventLoop> loops = new ArrayList<>();
+    private ServerSocketChannel serverChannel;
+
+    @Builder(setterPrefix = "with")
+    public MemcachedServer(ByteStashManager<StoredValue> manager, String host, Integer port, Integer threads, Integer maxValueSize) {
+        if (manager == null) {
+            throw new IllegalArgumentException("A ByteStashManager is needed to serve");
+        }
+        this.manager = manager;
+        this.address = new InetSocketAddress(host == null ? "0.0.0.0" : host, port == null ? DEFAULT_PORT : port);
+        this.threads = threads == null ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : Math.max(1, threads);
+        this.maxValueSize = maxValueSize == null ? DEFAULT_MAX_VALUE_SIZE : maxValueSize;
+    }
+
+    public synchronized MemcachedServer start() throws IOException {
+        if (serverChannel != null) {
+            throw new IllegalStateException("Server is already started");
+        }
+        CommandProcessor processor = new CommandProcessor(manager, maxValueSize);
+        int maxInputSize = maxValueSize + 2 * CommandProcessor.MAX_LINE_LENGTH;
+        for (int i = 0; i < threads; i++) {
+            loops.add(new EventLoop(processor, maxInputSize));
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        loops.get(0).accept(serverChannel, this);
+        for (int i = 0; i < loops.size(); i++) {
+            Thread thread = new Thread(loops.get(i), "bytestash-server-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        logger.debug("Serving on {} with {} selector threads", serverChannel.getLocalAddress(), threads);
+        return this;
+    }
+
+    EventLoop nextLoop() {
+        return loops.get(Math.floorMod(nextLoop.getAndIncrement(), loops.size()));
+    }
+
+    /**
+     * Port the server listens on, useful when it was started on port 0.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        loops.forEach(EventLoop::stop);
+        loops.clear();
+        if (serverChannel != null) {
+            serverChannel.close();
+            serverChannel = null;
+        }
+    }
+
+    /**
+     * {@code MemcachedServer [port] [nodes] [capacity]}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ByteStashManager<StoredValue> manager = ByteStashFactory.<StoredValue>builder()
+                                                        .withNodes(args.length > 1 ? Integer.parseInt(args[1]) : 4)
+                                                        .withCapacity(args.length > 2 ? Long.parseLong(args[2]) : 1_000_000L)
+                                                        .withTimeToLive(300)
+                                                        .build()
+                                                        .create();
+        try (MemcachedServer server = MemcachedServer.builder().withManager(manager).withPort(port).build().start()) {
+            logger.info("ByteStash listening on port {}", server.getPort());
+            Thread.currentThread().join();
+        }
+    }
+}
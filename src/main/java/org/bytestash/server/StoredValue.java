@@ -0,0 +1,23 @@
+package org.bytestash.server;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * Value of a memcached item: the opaque client flags, the data block and the unique value returned by gets.
+ */
+@Getter
+public class StoredValue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int flags;
+    private final byte[] data;
+    private final long casUnique;
+
+    public StoredValue(int flags, byte[] data, long casUnique) {
+        this.flags = flags;
+        this.data = data;
+        this.casUnique = casUnique;
+    }
+}
@@ -0,0 +1,9 @@
+package org.bytestash.simulator;
+
+/**
+ * Receives the accesses of a trace, the size is 1 when the trace has none.
+ */
+@FunctionalInterface
+public interface AccessConsumer {
+    void accept(long key, int size);
+}
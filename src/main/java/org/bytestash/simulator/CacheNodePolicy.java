@@ -0,0 +1,46 @@
+package org.bytestash.simulator;
+
+import org.bytestash.cache.CacheNode;
+import org.bytestash.cache.CacheNodeConfig;
+import org.bytestash.stats.StatsSnapshot;
+
+/**
+ * Replays the trace against a CacheNode, the value of an entry is its size so a weigher can use it. Nothing
+ * expires during a replay.
+ */
+public class CacheNodePolicy implements Policy {
+    private static final int TTL = 24 * 60 * 60;
+
+    private final CacheNode<Integer> cacheNode;
+
+    public CacheNodePolicy(long capacity, float hotPercent, float warmPercent, CacheNodeConfig<Integer> config) {
+        this.cacheNode = new CacheNode<>(capacity, hotPercent, warmPercent, TTL, 0, config);
+    }
+
+    /**
+     * Config whose weigher counts the size of the entries against the capacity.
+     */
+    public static CacheNodeConfig.CacheNodeConfigBuilder<Integer> weighted() {
+        return CacheNodeConfig.<Integer>builder().withWeigher((key, size) -> size);
+    }
+
+    @Override
+    public boolean record(long key, int size) {
+        if (cacheNode.get(key) != null) {
+            return true;
+        }
+        cacheNode.put(key, size);
+        return false;
+    }
+
+    @Override
+    public long getRegionMoves() {
+        StatsSnapshot stats = cacheNode.getStats();
+        return stats.getPromotionCount() + stats.getDemotionCount();
+    }
+
+    @Override
+    public long getEvictions() {
+        return cacheNode.getStats().getSizeEvictionCount();
+    }
+}
@@ -0,0 +1,48 @@
+package org.bytestash.simulator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plain LRU with the same capacity, the baseline the CacheNode configurations are compared with.
+ */
+public class LruPolicy implements Policy {
+    private final LinkedHashMap<Long, Integer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long capacity;
+    private final boolean weighted;
+    private long size;
+    private long evictions;
+
+    public LruPolicy(long capacity, boolean weighted) {
+        this.capacity = capacity;
+        this.weighted = weighted;
+    }
+
+    @Override
+    public boolean record(long key, int size) {
+        if (entries.get(key) != null) {
+            return true;
+        }
+        int weight = weighted ? size : 1;
+        entries.put(key, weight);
+        this.size += weight;
+        Iterator<Map.Entry<Long, Integer>> eldest = entries.entrySet().iterator();
+        while (this.size > capacity && eldest.hasNext()) {
+            this.size -= eldest.next().getValue();
+            eldest.remove();
+            evictions++;
+        }
+        return false;
+    }
+
+    @Override
+    public long getRegionMoves() {
+        return 0;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions;
+    }
+}
@@ -0,0 +1,18 @@
+package org.bytestash.simulator;
+
+/**
+ * Cache policy replayed by the simulator.
+ */
+public interface Policy {
+    /**
+     * Looks the key up and stores it on a miss, returns whether it was a hit.
+     */
+    boolean record(long key, int size);
+
+    /**
+     * Entries moved between regions, 0 for policies without regions.
+     */
+    long getRegionMoves();
+
+    long getEvictions();
+}
@@ -0,0 +1,31 @@
+package org.bytestash.simulator;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@Builder(setterPrefix = "with")
+public class SimulationResult {
+    private final String name;
+    private final long events;
+    private final long hits;
+    private final long bytes;
+    private final long hitBytes;
+    private final long regionMoves;
+    private final long evictions;
+    private final long elapsedNanos;
+
+    public double hitRatio() {
+        return events == 0 ? 0 : (double) hits / events;
+    }
+
+    public double byteHitRatio() {
+        return bytes == 0 ? 0 : (double) hitBytes / bytes;
+    }
+
+    public double eventsPerSecond() {
+        return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,134 @@
+package org.bytestash.simulator;
+
+import lombok.Builder;
+import org.bytestash.cache.CacheNodeConfig;
+import org.bytestash.evictionpolicy.AdmissionPolicy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Replays an access trace against several policies and compares their hit ratios. Every policy streams the
+ * trace on its own thread, so independent configurations run in parallel on the available cores.
+ */
+public class Simulator {
+
+    private final Path trace;
+    private final TraceFormat format;
+    private final Map<String, Supplier<? extends Policy>> policies;
+    private final int parallelism;
+
+    @Builder(setterPrefix = "with")
+    public Simulator(Path trace, TraceFormat format, Map<String, Supplier<? extends Policy>> policies, Integer parallelism) {
+        if (trace == null || policies == null || policies.isEmpty()) {
+            throw new IllegalArgumentException("A trace and at least one policy are needed");
+        }
+        this.trace = trace;
+        this.format = format == null ? TraceFormat.LINES : format;
+        this.policies = new LinkedHashMap<>(policies);
+        this.parallelism = parallelism == null ? Runtime.getRuntime().availableProcessors() : Math.max(1, parallelism);
+    }
+
+    /**
+     * Results in the order the policies were given.
+     */
+    public List<SimulationResult> run() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, policies.size()), runnable -> {
+            Thread thread = new Thread(runnable, "bytestash-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<SimulationResult>> runs = new ArrayList<>();
+            policies.forEach((name, policy) -> runs.add(CompletableFuture.supplyAsync(() -> replay(name, policy.get()), executor)));
+            List<SimulationResult> results = new ArrayList<>();
+            runs.forEach(run -> results.add(run.join()));
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private SimulationResult replay(String name, Policy policy) {
+        long[] counts = new long[4];
+        long start = System.nanoTime();
+        try {
+            TraceReader.read(trace, format, (key, size) -> {
+                counts[0]++;
+                counts[2] += size;
+                if (policy.record(key, size)) {
+                    counts[1]++;
+                    counts[3] += size;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read trace " + trace, e);
+        }
+        return SimulationResult.builder()
+                       .withName(name)
+                       .withEvents(counts[0])
+                       .withHits(counts[1])
+                       .withBytes(counts[2])
+                       .withHitBytes(counts[3])
+                       .withRegionMoves(policy.getRegionMoves())
+                       .withEvictions(policy.getEvictions())
+                       .withElapsedNanos(System.nanoTime() - start)
+                       .build();
+    }
+
+    public static String report(List<SimulationResult> results) {
+        int width = "Policy".length();
+        for (SimulationResult result : results) {
+            width = Math.max(width, result.getName().length());
+        }
+        String row = "%-" + width + "s %12s %10s %10s %14s %12s %12s%n";
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(row, "Policy", "Events", "Hit ratio", "Byte hits", "Region moves", "Evictions", "Events/s"));
+        for (SimulationResult result : results) {
+            report.append(String.format(row, result.getName(), result.getEvents(),
+                    String.format("%.2f%%", result.hitRatio() * 100), String.format("%.2f%%", result.byteHitRatio() * 100),
+                    result.getRegionMoves(), result.getEvictions(), String.format("%.0f", result.eventsPerSecond())));
+        }
+        return report.toString();
+    }
+
+    /**
+     * {@code Simulator <LINES|ARC|LIRS|CSV> <trace> <capacity> [weighted]} compares LRU with a few CacheNode
+     * configurations, with weighted the capacity is in the sizes of the CSV trace.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: Simulator <LINES|ARC|LIRS|CSV> <trace> <capacity> [weighted]");
+            System.exit(1);
+        }
+        TraceFormat format = TraceFormat.valueOf(args[0].toUpperCase());
+        long capacity = Long.parseLong(args[2]);
+        boolean weighted = args.length > 3 && "weighted".equalsIgnoreCase(args[3]);
+        Supplier<CacheNodeConfig.CacheNodeConfigBuilder<Integer>> config =
+                () -> weighted ? CacheNodePolicy.weighted() : CacheNodeConfig.builder();
+        Map<String, Supplier<? extends Policy>> policies = new LinkedHashMap<>();
+        policies.put("LRU", () -> new LruPolicy(capacity, weighted));
+        policies.put("ByteStash 20/30/50", () -> new CacheNodePolicy(capacity, 0.2f, 0.3f, config.get().build()));
+        policies.put("ByteStash 10/60/30", () -> new CacheNodePolicy(capacity, 0.1f, 0.6f, config.get().build()));
+        policies.put("ByteStash TinyLFU", () -> new CacheNodePolicy(capacity, 0.2f, 0.3f,
+                config.get().withAdmissionPolicy(AdmissionPolicy.TINY_LFU).build()));
+        policies.put("ByteStash adaptive", () -> new CacheNodePolicy(capacity, 0.2f, 0.3f,
+                config.get().withAdaptiveSizing(true).build()));
+        List<SimulationResult> results = Simulator.builder()
+                                                 .withTrace(Path.of(args[1]))
+                                                 .withFormat(format)
+                                                 .withPolicies(policies)
+                                                 .build()
+                                                 .run();
+        System.out.print(report(results));
+    }
+}
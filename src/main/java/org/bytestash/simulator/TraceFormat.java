@@ -0,0 +1,83 @@
+package org.bytestash.simulator;
+
+/**
+ * Line formats of the access traces.
+ */
+public enum TraceFormat {
+    /**
+     * One key per line, any text.
+     */
+    LINES,
+    /**
+     * ARC traces: starting block, number of blocks, ignored, request number. Every block is one access.
+     */
+    ARC,
+    /**
+     * LIRS traces: one block number per line, lines starting with * are markers.
+     */
+    LIRS,
+    /**
+     * key,size with an optional header line, the size is used for the byte hit ratio and weighted capacities.
+     */
+    CSV;
+
+    void parse(String line, AccessConsumer consumer) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return;
+        }
+        switch (this) {
+            case LINES -> consumer.accept(hash(trimmed), 1);
+            case ARC -> {
+                String[] fields = trimmed.split("\\s+");
+                long start = Long.parseLong(fields[0]);
+                int blocks = fields.length > 1 ? Integer.parseInt(fields[1]) : 1;
+                for (int i = 0; i < blocks; i++) {
+                    consumer.accept(start + i, 1);
+                }
+            }
+            case LIRS -> {
+                if (!trimmed.startsWith("*")) {
+                    consumer.accept(Long.parseLong(trimmed), 1);
+                }
+            }
+            case CSV -> {
+                int comma = trimmed.indexOf(',');
+                String key = comma < 0 ? trimmed : trimmed.substring(0, comma).trim();
+                int size = 1;
+                if (comma >= 0) {
+                    int end = trimmed.indexOf(',', comma + 1);
+                    String sizeField = (end < 0 ? trimmed.substring(comma + 1) : trimmed.substring(comma + 1, end)).trim();
+                    if (!isNumber(sizeField)) {
+                        return;
+                    }
+                    size = Math.max(1, Integer.parseInt(sizeField));
+                }
+                consumer.accept(hash(key), size);
+            }
+        }
+    }
+
+    private static boolean isNumber(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (!Character.isDigit(field.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64 bit hash of a text key, collisions are unlikely enough not to move the hit ratio.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,32 @@
+package org.bytestash.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams a trace from disk, the trace is never held in memory as a whole.
+ */
+public class TraceReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private TraceReader() {
+    }
+
+    /**
+     * Feeds every access of the trace to the consumer and returns the number of lines read.
+     */
+    public static long read(Path trace, TraceFormat format, AccessConsumer consumer) throws IOException {
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(trace, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                format.parse(line, consumer);
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,300 @@
+package org.bytestash.snapshot;
+
+import org.bytestash.cache.CacheNode;
+import org.bytestash.cache.CacheRegionType;
+import org.bytestash.cache.NodeEntry;
+import org.bytestash.key.CacheKey;
+import org.bytestash.storage.ValueSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binary snapshots of the entries of a set of nodes. The file starts with a header holding the time it was taken
+ * and the offset and length of the section of every node, the sections are written and read through memory
+ * mapped windows, one node per task. A section holds the value class names used in it followed by the entries
+ * in the order of {@link CacheNode#entries()}: flags (region and fixed expiry), remaining ttl, value class,
+ * key and value. The ttl that passed between taking and restoring the snapshot is taken off on restore.
+ * <p>
+ * The entries of a node are streamed in chunks to a temporary file next to the snapshot before their section
+ * is sized, so neither the node lock nor the serialized node are held for a whole node.
+ */
+public class CacheSnapshots {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshots.class);
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+    private static final int FIXED_EXPIRY = 1 << 2;
+    private static final int REGION_MASK = 3;
+    private static final int NO_CLASS = -1;
+    private static final int CHUNK_ENTRIES = 1024;
+    private static final int COPY_BUFFER = 1 << 20;
+
+    private CacheSnapshots() {
+    }
+
+    /**
+     * Writes the entries of the nodes to the file and returns how many were written. The snapshot is written
+     * next to the file and moved in place once complete, so a failed snapshot leaves the previous one intact.
+     */
+    public static <T> long write(Path file, List<CacheNode<T>> nodes, ValueSerializer<Object> keySerializer,
+                                 ValueSerializer<T> valueSerializer, Executor executor) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        List<CompletableFuture<Section>> serializing = new ArrayList<>();
+        for (CacheNode<T> node : nodes) {
+            serializing.add(CompletableFuture.supplyAsync(() -> Section.of(node, directory, keySerializer, valueSerializer), executor));
+        }
+        try {
+            return write(file, serializing, nodes.size(), executor);
+        } finally {
+            for (CompletableFuture<Section> section : serializing) {
+                Section serialized = section.exceptionally(e -> null).join();
+                if (serialized != null) {
+                    serialized.delete();
+                }
+            }
+        }
+    }
+
+    private static long write(Path file, List<CompletableFuture<Section>> serializing, int nodes, Executor executor) throws IOException {
+        List<Section> sections = new ArrayList<>();
+        for (CompletableFuture<Section> section : serializing) {
+            sections.add(join(section));
+        }
+        long headerLength = Integer.BYTES * 3L + Long.BYTES + sections.size() * 2L * Long.BYTES;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate((int) headerLength);
+            header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(sections.size());
+            long offset = headerLength;
+            long[] offsets = new long[sections.size()];
+            for (int i = 0; i < sections.size(); i++) {
+                offsets[i] = offset;
+                header.putLong(offset).putLong(sections.get(i).length);
+                offset += sections.get(i).length;
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            List<CompletableFuture<Void>> writing = new ArrayList<>();
+            for (int i = 0; i < sections.size(); i++) {
+                Section section = sections.get(i);
+                long sectionOffset = offsets[i];
+                writing.add(CompletableFuture.runAsync(() -> section.write(channel, sectionOffset), executor));
+            }
+            for (CompletableFuture<Void> task : writing) {
+                join(task);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long entries = sections.stream().mapToLong(section -> section.entries).sum();
+        logger.debug("Wrote snapshot of {} entries from {} nodes to {}", entries, nodes, file);
+        return entries;
+    }
+
+    /**
+     * Reads the sections of the file in parallel and hands every entry that did not expire meanwhile to the
+     * target, in the order it was written within its section. Returns how many entries were handed over.
+     */
+    public static <T> long read(Path file, ValueSerializer<Object> keySerializer, ValueSerializer<T> valueSerializer,
+                                RestoreTarget<T> target, Executor executor) throws IOException {
+        AtomicLong restored = new AtomicLong();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedInput header = new MappedInput(channel, 0, channel.size());
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a ByteStash snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            long elapsedNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - header.getLong()));
+            int sectionCount = header.getInt();
+            List<CompletableFuture<Void>> reading = new ArrayList<>();
+            for (int i = 0; i < sectionCount; i++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                reading.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        restored.addAndGet(readSection(new MappedInput(channel, offset, length), elapsedNanos,
+                                keySerializer, valueSerializer, target));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+            }
+            for (CompletableFuture<Void> task : reading) {
+                join(task);
+            }
+        }
+        logger.debug("Restored {} entries from snapshot {}", restored.get(), file);
+        return restored.get();
+    }
+
+    private static <T> long readSection(MappedInput input, long elapsedNanos, ValueSerializer<Object> keySerializer,
+                                        ValueSerializer<T> valueSerializer, RestoreTarget<T> target) throws IOException {
+        Class<?>[] classes = new Class<?>[input.getInt()];
+        for (int i = 0; i < classes.length; i++) {
+            ByteBuffer name = input.getBytes();
+            classes[i] = loadClass(StandardCharsets.UTF_8.decode(name).toString());
+        }
+        long entries = input.getLong();
+        long restored = 0;
+        CacheRegionType[] regions = CacheRegionType.values();
+        for (long i = 0; i < entries; i++) {
+            int flags = input.getByte();
+            long ttlNanos = input.getLong() - elapsedNanos;
+            int classIndex = input.getInt();
+            ByteBuffer keyBytes = input.getBytes();
+            if (ttlNanos <= 0) {
+                input.getBytes();
+                continue;
+            }
+            Object key = keySerializer.deserialize(keyBytes);
+            T value = valueSerializer.deserialize(input.getBytes());
+            target.restore(key, classIndex == NO_CLASS ? null : classes[classIndex], value, regions[flags & REGION_MASK],
+                    ttlNanos, (flags & FIXED_EXPIRY) != 0);
+            restored++;
+        }
+        return restored;
+    }
+
+    private static Class<?> loadClass(String name) throws IOException {
+        try {
+            return Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            try {
+                return Class.forName(name);
+            } catch (ClassNotFoundException notFound) {
+                throw new IOException("Unknown value class " + name + " in snapshot", notFound);
+            }
+        }
+    }
+
+    private static <R> R join(CompletableFuture<R> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Serialized entries of one node in a temporary file, sized before anything is mapped.
+     */
+    private static final class Section {
+        private final List<byte[]> classNames = new ArrayList<>();
+        private final Path entriesFile;
+        private long entries;
+        private long length = Integer.BYTES + Long.BYTES;
+
+        private Section(Path entriesFile) {
+            this.entriesFile = entriesFile;
+        }
+
+        private static <T> Section of(CacheNode<T> node, Path directory, ValueSerializer<Object> keySerializer,
+                                      ValueSerializer<T> valueSerializer) {
+            Section section;
+            try {
+                section = new Section(Files.createTempFile(directory, "snapshot-node-" + node.getIndex() + "-", ".tmp"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Map<Class<?>, Integer> classIndexes = new HashMap<>();
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(section.entriesFile)))) {
+                node.entries(CHUNK_ENTRIES, chunk -> {
+                    try {
+                        for (NodeEntry<T> entry : chunk) {
+                            section.add(entry, output, classIndexes, keySerializer, valueSerializer);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                section.delete();
+                throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+            }
+            return section;
+        }
+
+        private <T> void add(NodeEntry<T> entry, DataOutputStream output, Map<Class<?>, Integer> classIndexes,
+                             ValueSerializer<Object> keySerializer, ValueSerializer<T> valueSerializer) throws IOException {
+            Object key = entry.getKey();
+            int classIndex = NO_CLASS;
+            if (key instanceof CacheKey) {
+                classIndex = classIndexes.computeIfAbsent(((CacheKey) key).getValueClass(), type -> {
+                    byte[] name = type.getName().getBytes(StandardCharsets.UTF_8);
+                    classNames.add(name);
+                    length += Integer.BYTES + name.length;
+                    return classNames.size() - 1;
+                });
+                key = ((CacheKey) key).getKey();
+            }
+            byte[] keyBytes = keySerializer.serialize(key);
+            byte[] valueBytes = valueSerializer.serialize(entry.getValue());
+            output.writeByte(entry.getRegion().ordinal() | (entry.isFixedExpiry() ? FIXED_EXPIRY : 0));
+            output.writeLong(entry.getRemainingTtlNanos());
+            output.writeInt(classIndex);
+            output.writeInt(keyBytes.length);
+            output.write(keyBytes);
+            output.writeInt(valueBytes.length);
+            output.write(valueBytes);
+            entries++;
+            length += Byte.BYTES + Long.BYTES + Integer.BYTES * 3L + keyBytes.length + valueBytes.length;
+        }
+
+        private void write(FileChannel channel, long offset) {
+            MappedOutput output = new MappedOutput(channel, offset, length);
+            try (FileChannel input = FileChannel.open(entriesFile, StandardOpenOption.READ)) {
+                output.putInt(classNames.size());
+                for (byte[] name : classNames) {
+                    output.putBytes(name);
+                }
+                output.putLong(entries);
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER);
+                while (input.read(buffer) >= 0) {
+                    buffer.flip();
+                    output.put(buffer);
+                    buffer.clear();
+                }
+                output.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void delete() {
+            try {
+                Files.deleteIfExists(entriesFile);
+            } catch (IOException e) {
+                logger.debug("Unable to delete {} with error : {}", entriesFile, e, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.bytestash.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a section of a file through memory mapped windows, the counterpart of {@link MappedOutput}.
+ */
+final class MappedInput {
+    private final FileChannel channel;
+    private final long end;
+    private long windowStart;
+    private MappedByteBuffer buffer;
+
+    MappedInput(FileChannel channel, long offset, long length) {
+        this.channel = channel;
+        this.windowStart = offset;
+        this.end = offset + length;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer != null && buffer.remaining() >= bytes) {
+            return;
+        }
+        if (buffer != null) {
+            windowStart += buffer.position();
+        }
+        long size = Math.min(Math.max(MappedOutput.WINDOW, bytes), end - windowStart);
+        if (bytes < 0 || size < bytes) {
+            throw new IOException("Snapshot section is truncated");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+    }
+
+    byte getByte() throws IOException {
+        ensure(Byte.BYTES);
+        return buffer.get();
+    }
+
+    int getInt() throws IOException {
+        ensure(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        ensure(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * Length prefixed bytes as a view of the mapping, valid until the next read.
+     */
+    ByteBuffer getBytes() throws IOException {
+        int length = getInt();
+        ensure(length);
+        ByteBuffer bytes = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return bytes;
+    }
+}
@@ -0,0 +1,78 @@
+package org.bytestash.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes a section of a file through memory mapped windows, so sections larger than one mapping can be
+ * written sequentially.
+ */
+final class MappedOutput {
+    static final int WINDOW = 64 << 20;
+
+    private final FileChannel channel;
+    private final long end;
+    private long windowStart;
+    private MappedByteBuffer buffer;
+
+    MappedOutput(FileChannel channel, long offset, long length) {
+        this.channel = channel;
+        this.windowStart = offset;
+        this.end = offset + length;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer != null && buffer.remaining() >= bytes) {
+            return;
+        }
+        if (buffer != null) {
+            windowStart += buffer.position();
+            buffer.force();
+        }
+        long size = Math.min(Math.max(WINDOW, bytes), end - windowStart);
+        if (size < bytes) {
+            throw new IOException("Snapshot section overflows its " + (end - windowStart) + " remaining bytes");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, size);
+    }
+
+    void putByte(byte value) throws IOException {
+        ensure(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Length prefixed bytes.
+     */
+    void putBytes(byte[] bytes) throws IOException {
+        ensure(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Remaining bytes of the buffer, without a length prefix.
+     */
+    void put(ByteBuffer bytes) throws IOException {
+        ensure(bytes.remaining());
+        buffer.put(bytes);
+    }
+
+    void finish() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.bytestash.snapshot;
+
+import org.bytestash.cache.CacheRegionType;
+
+import java.io.IOException;
+
+/**
+ * Receives the entries read from a snapshot. The value class is null for keys that were not CacheKeys.
+ */
+@FunctionalInterface
+public interface RestoreTarget<T> {
+    void restore(Object key, Class<?> valueClass, T value, CacheRegionType region, long ttlNanos, boolean fixedExpiry)
+            throws IOException;
+}
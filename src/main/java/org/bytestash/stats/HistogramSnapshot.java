@@ -0,0 +1,71 @@
+package org.bytestash.stats;
+
+import java.util.Arrays;
+
+/**
+ * Counts of a LatencyHistogram at one point in time. Percentiles are the upper bound of the bucket they fall
+ * in, so they overestimate by less than a factor of two.
+ */
+public class HistogramSnapshot {
+    private static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.BUCKETS], 0);
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long sumNanos;
+
+    HistogramSnapshot(long[] counts, long sumNanos) {
+        this.counts = counts;
+        this.count = Arrays.stream(counts).sum();
+        this.sumNanos = sumNanos;
+    }
+
+    public static HistogramSnapshot empty() {
+        return EMPTY;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) sumNanos / count;
+    }
+
+    /**
+     * Duration below which the given fraction of the recorded durations fall, 0 when nothing was recorded.
+     */
+    public long percentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return i == 0 ? 0 : i >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public long[] getCounts() {
+        return counts.clone();
+    }
+
+    public HistogramSnapshot plus(HistogramSnapshot other) {
+        long[] merged = new long[counts.length];
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] = counts[i] + other.counts[i];
+        }
+        return new HistogramSnapshot(merged, sumNanos + other.sumNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{count=" + count + ", mean=" + getMeanNanos() + ", p50=" + percentileNanos(0.5)
+                       + ", p99=" + percentileNanos(0.99) + ", p999=" + percentileNanos(0.999) + '}';
+    }
+}
@@ -0,0 +1,35 @@
+package org.bytestash.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with power of two buckets, bucket i counts the durations below 2^i
+ * and at least 2^(i-1). Recording is two LongAdder increments, so it is cheap enough to stay always on.
+ */
+public class LatencyHistogram {
+    static final int BUCKETS = Long.SIZE + 1;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[Long.SIZE - Long.numberOfLeadingZeros(value)].increment();
+        sum.add(value);
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return new HistogramSnapshot(snapshot, sum.sum());
+    }
+}
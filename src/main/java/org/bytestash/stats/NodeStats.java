@@ -0,0 +1,87 @@
+package org.bytestash.stats;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always on counters of one CacheNode. Latencies are sampled, one get or put in {@link #LATENCY_SAMPLE_RATE}
+ * is timed and the others make no {@link System#nanoTime()} call.
+ */
+public class NodeStats {
+    public static final int LATENCY_SAMPLE_RATE = 64;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final LongAdder demotions = new LongAdder();
+    private final LongAdder[] removals = new LongAdder[RemovalCause.values().length];
+    private final LatencyHistogram getLatency = new LatencyHistogram();
+    private final LatencyHistogram putLatency = new LatencyHistogram();
+
+    public NodeStats() {
+        for (int i = 0; i < removals.length; i++) {
+            removals[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Start time of the operation when its latency is sampled, the value to pass to recordGet or recordPut.
+     */
+    public long startTimer() {
+        return (ThreadLocalRandom.current().nextInt() & (LATENCY_SAMPLE_RATE - 1)) == 0 ? System.nanoTime() : NOT_SAMPLED;
+    }
+
+    public void recordGet(boolean hit, long start) {
+        (hit ? hits : misses).increment();
+        if (start != NOT_SAMPLED) {
+            getLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordGets(int hitCount, int missCount) {
+        hits.add(hitCount);
+        misses.add(missCount);
+    }
+
+    public void recordPut(long start) {
+        puts.increment();
+        if (start != NOT_SAMPLED) {
+            putLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordPuts(int count) {
+        puts.add(count);
+    }
+
+    public void recordRemoval(RemovalCause cause) {
+        removals[cause.ordinal()].increment();
+    }
+
+    public void recordPromotion() {
+        promotions.increment();
+    }
+
+    public void recordDemotion() {
+        demotions.increment();
+    }
+
+    public StatsSnapshot snapshot(long entryCount, long weightedSize) {
+        return StatsSnapshot.builder()
+                       .withHitCount(hits.sum())
+                       .withMissCount(misses.sum())
+                       .withPutCount(puts.sum())
+                       .withExpiredCount(removals[RemovalCause.EXPIRED.ordinal()].sum())
+                       .withSizeEvictionCount(removals[RemovalCause.SIZE.ordinal()].sum())
+                       .withExplicitRemovalCount(removals[RemovalCause.EXPLICIT.ordinal()].sum())
+                       .withPromotionCount(promotions.sum())
+                       .withDemotionCount(demotions.sum())
+                       .withEntryCount(entryCount)
+                       .withWeightedSize(weightedSize)
+                       .withGetLatency(getLatency.snapshot())
+                       .withPutLatency(putLatency.snapshot())
+                       .build();
+    }
+}
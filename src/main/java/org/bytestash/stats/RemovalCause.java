@@ -0,0 +1,19 @@
+package org.bytestash.stats;
+
+/**
+ * Why an entry left a node.
+ */
+public enum RemovalCause {
+    /**
+     * Its time to live passed.
+     */
+    EXPIRED,
+    /**
+     * Evicted or not admitted to make room.
+     */
+    SIZE,
+    /**
+     * Removed by the user.
+     */
+    EXPLICIT
+}
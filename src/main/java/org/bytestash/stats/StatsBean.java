@@ -0,0 +1,158 @@
+package org.bytestash.stats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * StatsMXBean over a snapshot supplier, every attribute read takes a fresh snapshot.
+ */
+public class StatsBean implements StatsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(StatsBean.class);
+    private static final String DOMAIN = "org.bytestash";
+
+    private final Supplier<StatsSnapshot> snapshots;
+
+    public StatsBean(Supplier<StatsSnapshot> snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    public static ObjectName cacheName(String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=ByteStash,name=" + ObjectName.quote(name));
+    }
+
+    public static ObjectName nodeName(String name, int node) throws JMException {
+        return new ObjectName(DOMAIN + ":type=CacheNode,name=" + ObjectName.quote(name) + ",node=" + node);
+    }
+
+    /**
+     * Registers the bean with the platform MBean server, a failure is logged and does not affect the cache.
+     */
+    public static void register(ObjectName name, Supplier<StatsSnapshot> snapshots) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new StatsBean(snapshots), name);
+        } catch (JMException e) {
+            logger.error("Unable to register MBean {}", name, e);
+        }
+    }
+
+    public static void unregister(ObjectName name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.error("Unable to unregister MBean {}", name, e);
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return snapshots.get().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return snapshots.get().getMissCount();
+    }
+
+    @Override
+    public double getHitRatio() {
+        return snapshots.get().hitRatio();
+    }
+
+    @Override
+    public long getPutCount() {
+        return snapshots.get().getPutCount();
+    }
+
+    @Override
+    public long getExpiredCount() {
+        return snapshots.get().getExpiredCount();
+    }
+
+    @Override
+    public long getSizeEvictionCount() {
+        return snapshots.get().getSizeEvictionCount();
+    }
+
+    @Override
+    public long getExplicitRemovalCount() {
+        return snapshots.get().getExplicitRemovalCount();
+    }
+
+    @Override
+    public long getPromotionCount() {
+        return snapshots.get().getPromotionCount();
+    }
+
+    @Override
+    public long getDemotionCount() {
+        return snapshots.get().getDemotionCount();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return snapshots.get().getEntryCount();
+    }
+
+    @Override
+    public long getWeightedSize() {
+        return snapshots.get().getWeightedSize();
+    }
+
+    @Override
+    public double getGetLatencyMeanNanos() {
+        return snapshots.get().getGetLatency().getMeanNanos();
+    }
+
+    @Override
+    public long getGetLatencyP50Nanos() {
+        return snapshots.get().getGetLatency().percentileNanos(0.5);
+    }
+
+    @Override
+    public long getGetLatencyP99Nanos() {
+        return snapshots.get().getGetLatency().percentileNanos(0.99);
+    }
+
+    @Override
+    public double getPutLatencyMeanNanos() {
+        return snapshots.get().getPutLatency().getMeanNanos();
+    }
+
+    @Override
+    public long getPutLatencyP99Nanos() {
+        return snapshots.get().getPutLatency().percentileNanos(0.99);
+    }
+
+    @Override
+    public long getCrawlerLagP99Nanos() {
+        return snapshots.get().getCrawlerLag().percentileNanos(0.99);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return snapshots.get().getQueueDepth();
+    }
+
+    @Override
+    public long getQueueCoalescedCount() {
+        return snapshots.get().getQueueCoalescedCount();
+    }
+
+    @Override
+    public long getQueueDroppedCount() {
+        return snapshots.get().getQueueDroppedCount();
+    }
+}
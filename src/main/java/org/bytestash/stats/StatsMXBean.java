@@ -0,0 +1,27 @@
+package org.bytestash.stats;
+
+/**
+ * JMX view of a StatsSnapshot, registered per node and per cache under the org.bytestash domain.
+ */
+public interface StatsMXBean {
+    long getHitCount();
+    long getMissCount();
+    double getHitRatio();
+    long getPutCount();
+    long getExpiredCount();
+    long getSizeEvictionCount();
+    long getExplicitRemovalCount();
+    long getPromotionCount();
+    long getDemotionCount();
+    long getEntryCount();
+    long getWeightedSize();
+    double getGetLatencyMeanNanos();
+    long getGetLatencyP50Nanos();
+    long getGetLatencyP99Nanos();
+    double getPutLatencyMeanNanos();
+    long getPutLatencyP99Nanos();
+    long getCrawlerLagP99Nanos();
+    int getQueueDepth();
+    long getQueueCoalescedCount();
+    long getQueueDroppedCount();
+}
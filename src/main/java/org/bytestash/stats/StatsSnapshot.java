@@ -0,0 +1,63 @@
+package org.bytestash.stats;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Statistics of a node or, summed up, of a whole cache at one point in time. The queue and crawler values are
+ * only set on the cache level.
+ */
+@Getter
+@ToString
+@Builder(setterPrefix = "with", toBuilder = true)
+public class StatsSnapshot {
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long expiredCount;
+    private final long sizeEvictionCount;
+    private final long explicitRemovalCount;
+    private final long promotionCount;
+    private final long demotionCount;
+    private final long entryCount;
+    private final long weightedSize;
+    @Builder.Default
+    private final HistogramSnapshot getLatency = HistogramSnapshot.empty();
+    @Builder.Default
+    private final HistogramSnapshot putLatency = HistogramSnapshot.empty();
+    @Builder.Default
+    private final HistogramSnapshot crawlerLag = HistogramSnapshot.empty();
+    private final int queueDepth;
+    private final long queueCoalescedCount;
+    private final long queueDroppedCount;
+
+    public double hitRatio() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    public static StatsSnapshot empty() {
+        return StatsSnapshot.builder().build();
+    }
+
+    /**
+     * Sums the node level values of both snapshots, the cache level values are taken from this one.
+     */
+    public StatsSnapshot plus(StatsSnapshot other) {
+        return toBuilder()
+                       .withHitCount(hitCount + other.hitCount)
+                       .withMissCount(missCount + other.missCount)
+                       .withPutCount(putCount + other.putCount)
+                       .withExpiredCount(expiredCount + other.expiredCount)
+                       .withSizeEvictionCount(sizeEvictionCount + other.sizeEvictionCount)
+                       .withExplicitRemovalCount(explicitRemovalCount + other.explicitRemovalCount)
+                       .withPromotionCount(promotionCount + other.promotionCount)
+                       .withDemotionCount(demotionCount + other.demotionCount)
+                       .withEntryCount(entryCount + other.entryCount)
+                       .withWeightedSize(weightedSize + other.weightedSize)
+                       .withGetLatency(getLatency.plus(other.getLatency))
+                       .withPutLatency(putLatency.plus(other.putLatency))
+                       .build();
+    }
+}
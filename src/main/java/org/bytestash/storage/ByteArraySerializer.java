@@ -0,0 +1,18 @@
+package org.bytestash.storage;
+
+import java.nio.ByteBuffer;
+
+public class ByteArraySerializer implements ValueSerializer<byte[]> {
+
+    @Override
+    public byte[] serialize(byte[] value) {
+        return value;
+    }
+
+    @Override
+    public byte[] deserialize(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.remaining()];
+        buffer.get(value);
+        return value;
+    }
+}
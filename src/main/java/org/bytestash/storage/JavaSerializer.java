@@ -0,0 +1,35 @@
+package org.bytestash.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * Standard java serialization, values have to implement {@link Serializable}.
+ */
+public class JavaSerializer<T> implements ValueSerializer<T> {
+
+    @Override
+    public byte[] serialize(T value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to serialize value " + value, e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (T) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to deserialize value", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Unable to deserialize value", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.bytestash.storage;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Growable stack of primitive longs.
+ */
+class LongStack {
+    private long[] values = new long[16];
+    private int size;
+
+    void push(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    long pop() {
+        return values[--size];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void removeIf(LongPredicate predicate) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!predicate.test(values[i])) {
+                values[kept++] = values[i];
+            }
+        }
+        size = kept;
+    }
+}
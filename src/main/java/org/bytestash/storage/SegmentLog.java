@@ -0,0 +1,392 @@
+package org.bytestash.storage;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Log structured store of values in one file, mapped in fixed size segments. Records are appended to the active
+ * segment, the keys stay in memory with the address of their record. Replaced and removed records are dead
+ * bytes until {@link #compact(long)} copies the live records of a mostly dead segment to the active one and
+ * frees it. When no segment is free the oldest one is dropped with all its records, segments holding room
+ * reserved by a running compaction are pinned and not dropped.
+ * <p>
+ * A record is the length of the value, its expiration time and the value bytes.
+ */
+public class SegmentLog<K> implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentLog.class);
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int MIN_SEGMENTS = 3;
+    private static final double COMPACT_LIVE_RATIO = 0.5;
+
+    private final Path file;
+    private final FileChannel channel;
+    @Getter
+    private final int segmentSize;
+    private final MappedByteBuffer[] segments;
+    private final List<List<K>> segmentKeys;
+    private final long[] liveBytes;
+    private final int[] pins;
+    private final ArrayDeque<Integer> freeSegments = new ArrayDeque<>();
+    private final ArrayDeque<Integer> sealedSegments = new ArrayDeque<>();
+    private final Map<K, Long> index = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private int active;
+    private int writeOffset;
+    @Getter
+    private long droppedRecords;
+
+    public SegmentLog(Path file, long capacity, int segmentSize) throws IOException {
+        this.file = file;
+        this.segmentSize = segmentSize;
+        int segmentCount = (int) Math.max(MIN_SEGMENTS, Math.min(Integer.MAX_VALUE, capacity / segmentSize));
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segments = new MappedByteBuffer[segmentCount];
+        this.segmentKeys = new ArrayList<>(segmentCount);
+        this.liveBytes = new long[segmentCount];
+        this.pins = new int[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segmentKeys.add(new ArrayList<>());
+            if (i > 0) {
+                freeSegments.add(i);
+            }
+        }
+        active = 0;
+        segments[0] = map(0);
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, (long) segment * segmentSize, segmentSize);
+    }
+
+    /**
+     * Appends the value of the key, replacing its previous record. Returns false when the value does not fit in
+     * a segment or every segment is pinned by a compaction.
+     */
+    public boolean put(K key, byte[] value, long expiresAt) throws IOException {
+        int size = HEADER_SIZE + value.length;
+        if (size > segmentSize) {
+            return false;
+        }
+        lock.lock();
+        try {
+            long address = reserve(size);
+            if (address < 0) {
+                return false;
+            }
+            markDead(index.remove(key));
+            write(address, value, expiresAt);
+            link(key, address, size);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Address of room for a record in the active segment, rolling to the next segment when it does not fit.
+     * -1 when there is no segment to roll to.
+     */
+    private long reserve(int size) throws IOException {
+        if (writeOffset + size > segmentSize && !roll()) {
+            return -1;
+        }
+        long address = address(active, writeOffset);
+        writeOffset += size;
+        return address;
+    }
+
+    private void write(long address, byte[] value, long expiresAt) {
+        MappedByteBuffer segment = segments[segmentOf(address)];
+        int offset = offsetOf(address);
+        segment.putInt(offset, value.length);
+        segment.putLong(offset + Integer.BYTES, expiresAt);
+        segment.put(offset + HEADER_SIZE, value);
+    }
+
+    private void link(K key, long address, int size) {
+        int segment = segmentOf(address);
+        index.put(key, address);
+        segmentKeys.get(segment).add(key);
+        liveBytes[segment] += size;
+    }
+
+    private boolean roll() throws IOException {
+        sealedSegments.addLast(active);
+        if (freeSegments.isEmpty()) {
+            Integer oldest = null;
+            for (int segment : sealedSegments) {
+                if (pins[segment] == 0) {
+                    oldest = segment;
+                    break;
+                }
+            }
+            if (oldest == null) {
+                sealedSegments.removeLast();
+                return false;
+            }
+            sealedSegments.remove(oldest);
+            drop(oldest);
+        }
+        active = freeSegments.pollFirst();
+        if (segments[active] == null) {
+            segments[active] = map(active);
+        }
+        writeOffset = 0;
+        return true;
+    }
+
+    private void drop(int segment) {
+        for (K key : segmentKeys.get(segment)) {
+            Long address = index.get(key);
+            if (address != null && segmentOf(address) == segment) {
+                index.remove(key);
+                droppedRecords++;
+            }
+        }
+        free(segment);
+        logger.debug("Dropped segment {} of {}", segment, file);
+    }
+
+    private void free(int segment) {
+        segmentKeys.get(segment).clear();
+        liveBytes[segment] = 0;
+        freeSegments.addLast(segment);
+    }
+
+    private void markDead(Long address) {
+        if (address != null) {
+            int segment = segmentOf(address);
+            liveBytes[segment] -= HEADER_SIZE + segments[segment].getInt(offsetOf(address));
+        }
+    }
+
+    /**
+     * Record of the key, null when there is none. The record stays in the log.
+     */
+    public Record get(K key) {
+        lock.lock();
+        try {
+            Long address = index.get(key);
+            return address == null ? null : read(address);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the record of the key and returns it, null when there is none.
+     */
+    public Record take(K key) {
+        lock.lock();
+        try {
+            Long address = index.remove(key);
+            if (address == null) {
+                return null;
+            }
+            Record record = read(address);
+            markDead(address);
+            return record;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(K key) {
+        lock.lock();
+        try {
+            Long address = index.remove(key);
+            markDead(address);
+            return address != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Record read(long address) {
+        MappedByteBuffer segment = segments[segmentOf(address)];
+        int offset = offsetOf(address);
+        byte[] value = new byte[segment.getInt(offset)];
+        segment.get(offset + HEADER_SIZE, value);
+        return new Record(value, segment.getLong(offset + Integer.BYTES));
+    }
+
+    /**
+     * Whether a sealed segment has less than half of its bytes live.
+     */
+    public boolean needsCompaction() {
+        lock.lock();
+        try {
+            return findVictim() >= 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int findVictim() {
+        for (int segment : sealedSegments) {
+            if (liveBytes[segment] < segmentSize * COMPACT_LIVE_RATIO) {
+                return segment;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the live records of the mostly dead segments to the active one and frees them, records expired at
+     * the given time are dropped. The log is only locked to pick a segment, to reserve room for its records and
+     * to point the index at the copies, reading and copying the records runs without the lock. Returns the
+     * freed segments.
+     */
+    public int compact(long now) throws IOException {
+        int compacted = 0;
+        while (true) {
+            int victim;
+            List<K> keys = new ArrayList<>();
+            List<Long> addresses = new ArrayList<>();
+            lock.lock();
+            try {
+                victim = findVictim();
+                if (victim < 0) {
+                    return compacted;
+                }
+                sealedSegments.remove(victim);
+                for (K key : segmentKeys.get(victim)) {
+                    Long address = index.get(key);
+                    if (address != null && segmentOf(address) == victim) {
+                        keys.add(key);
+                        addresses.add(address);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            // the victim is neither written nor dropped until it is freed
+            List<Record> records = new ArrayList<>(addresses.size());
+            for (long address : addresses) {
+                records.add(read(address));
+            }
+            long[] copies = new long[records.size()];
+            lock.lock();
+            try {
+                for (int i = 0; i < copies.length; i++) {
+                    Record record = records.get(i);
+                    copies[i] = record.getExpiresAt() - now > 0 ? reserve(HEADER_SIZE + record.getValue().length) : -1;
+                    if (copies[i] >= 0) {
+                        pins[segmentOf(copies[i])]++;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (int i = 0; i < copies.length; i++) {
+                if (copies[i] >= 0) {
+                    write(copies[i], records.get(i).getValue(), records.get(i).getExpiresAt());
+                }
+            }
+            lock.lock();
+            try {
+                boolean emptied = true;
+                for (int i = 0; i < copies.length; i++) {
+                    K key = keys.get(i);
+                    Record record = records.get(i);
+                    boolean current = addresses.get(i).equals(index.get(key));
+                    if (copies[i] >= 0) {
+                        pins[segmentOf(copies[i])]--;
+                        if (current) {
+                            markDead(index.remove(key));
+                            link(key, copies[i], HEADER_SIZE + record.getValue().length);
+                        }
+                    } else if (current && record.getExpiresAt() - now <= 0) {
+                        markDead(index.remove(key));
+                    } else if (current) {
+                        emptied = false;
+                    }
+                }
+                if (!emptied) {
+                    sealedSegments.addFirst(victim);
+                    return compacted;
+                }
+                free(victim);
+                compacted++;
+                logger.debug("Compacted segment {} of {}", victim, file);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Keys with a record when called, the log can change right after.
+     */
+    public List<K> keys() {
+        lock.lock();
+        try {
+            return new ArrayList<>(index.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            index.clear();
+            channel.close();
+            Files.deleteIfExists(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long address(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static int segmentOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Value bytes of a record with the expiration time they were written with.
+     */
+    @Getter
+    public static final class Record {
+        private final byte[] value;
+        private final long expiresAt;
+
+        private Record(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.bytestash.storage;
+
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Memcached style slab allocator over direct memory. Memory is split in pages, a page is given to one slab
+ * class and carved in chunks of that class size, chunk sizes grow by a fixed factor. Freed chunks go back to
+ * the free list of their class and pages that become empty can be handed to another class by {@link #rebalance()}.
+ * <p>
+ * A chunk starts with a version, bumped on every free, and the length of the stored bytes. Readers check the
+ * version before and after reading so they never keep bytes of a chunk that was reused meanwhile.
+ */
+public class SlabAllocator {
+    private static final Logger logger = LoggerFactory.getLogger(SlabAllocator.class);
+    public static final long NO_CHUNK = -1L;
+    public static final int DEFAULT_PAGE_SIZE = 1 << 20;
+    private static final int HEADER_SIZE = 8;
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final double GROWTH_FACTOR = 1.25;
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    @Getter
+    private final int pageSize;
+    private final int maxPages;
+    private final ByteBuffer[] pages;
+    private final int[] pageClass;
+    private final int[] pageUsedChunks;
+    private int allocatedPages;
+    private final LongStack freePages = new LongStack();
+    private final SlabClass[] slabClasses;
+    private final ReentrantLock lock = new ReentrantLock();
+    @Getter
+    private long usedBytes;
+
+    public SlabAllocator(long memoryLimit) {
+        this(memoryLimit, DEFAULT_PAGE_SIZE);
+    }
+
+    public SlabAllocator(long memoryLimit, int pageSize) {
+        this.pageSize = pageSize;
+        this.maxPages = (int) Math.max(1, memoryLimit / pageSize);
+        this.pages = new ByteBuffer[maxPages];
+        this.pageClass = new int[maxPages];
+        this.pageUsedChunks = new int[maxPages];
+        Arrays.fill(pageClass, -1);
+        int classes = 0;
+        SlabClass[] created = new SlabClass[64];
+        double size = MIN_CHUNK_SIZE;
+        while (true) {
+            int chunkSize = Math.min(pageSize, ((int) size + 7) & ~7);
+            created[classes++] = new SlabClass(chunkSize, pageSize / chunkSize);
+            if (chunkSize == pageSize) {
+                break;
+            }
+            size = Math.max(chunkSize + 8, size * GROWTH_FACTOR);
+        }
+        slabClasses = Arrays.copyOf(created, classes);
+    }
+
+    public int getMaxValueSize() {
+        return pageSize - HEADER_SIZE;
+    }
+
+    /**
+     * Allocates a chunk for the given bytes and copies them in, returns NO_CHUNK when the allocator is full.
+     */
+    public long store(byte[] bytes) {
+        if (bytes.length > getMaxValueSize()) {
+            return NO_CHUNK;
+        }
+        long chunk;
+        lock.lock();
+        try {
+            chunk = allocate(slabClassFor(bytes.length + HEADER_SIZE));
+            if (chunk == NO_CHUNK) {
+                return NO_CHUNK;
+            }
+            usedBytes += bytes.length;
+        } finally {
+            lock.unlock();
+        }
+        ByteBuffer page = pages[page(chunk)];
+        int offset = offset(chunk);
+        page.putInt(offset + 4, bytes.length);
+        page.put(offset + HEADER_SIZE, bytes);
+        return chunk;
+    }
+
+    public void free(long chunk) {
+        ByteBuffer page = pages[page(chunk)];
+        int offset = offset(chunk);
+        int version = (int) INT_VIEW.getVolatile(page, offset);
+        INT_VIEW.setVolatile(page, offset, version + 1);
+        lock.lock();
+        try {
+            int pageId = page(chunk);
+            slabClasses[pageClass[pageId]].freeChunks.push(chunk);
+            pageUsedChunks[pageId]--;
+            usedBytes -= page.getInt(offset + 4);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int version(long chunk) {
+        return (int) INT_VIEW.getVolatile(pages[page(chunk)], offset(chunk));
+    }
+
+    /**
+     * View on the bytes of a chunk, only valid if {@link #version(long)} did not change while reading it.
+     */
+    public ByteBuffer view(long chunk) {
+        ByteBuffer page = pages[page(chunk)];
+        int offset = offset(chunk);
+        int length = page.getInt(offset + 4);
+        if (length < 0 || length > getMaxValueSize()) {
+            return ByteBuffer.allocate(0);
+        }
+        return page.slice(offset + HEADER_SIZE, length);
+    }
+
+    /**
+     * Hands pages without any used chunk back to the free page pool so any slab class can take them.
+     * Returns the number of pages reclaimed.
+     */
+    public int rebalance() {
+        lock.lock();
+        try {
+            int reclaimed = 0;
+            for (int pageId = 0; pageId < allocatedPages; pageId++) {
+                int slabClassId = pageClass[pageId];
+                if (slabClassId < 0 || pageUsedChunks[pageId] > 0) {
+                    continue;
+                }
+                SlabClass slabClass = slabClasses[slabClassId];
+                if (slabClass.currentPage == pageId) {
+                    slabClass.currentPage = -1;
+                }
+                int freedPage = pageId;
+                slabClass.freeChunks.removeIf(chunk -> page(chunk) == freedPage);
+                pageClass[pageId] = -1;
+                freePages.push(pageId);
+                reclaimed++;
+            }
+            if (reclaimed > 0) {
+                logger.debug("Reclaimed {} empty slab pages, fragmentation now {}", reclaimed, getFragmentation());
+            }
+            return reclaimed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Share of the memory held by slab classes that does not hold value bytes.
+     */
+    public double getFragmentation() {
+        lock.lock();
+        try {
+            long reserved = (long) (allocatedPages - freePages.size()) * pageSize;
+            return reserved == 0 ? 0d : 1d - (double) usedBytes / reserved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int slabClassFor(int size) {
+        for (int i = 0; i < slabClasses.length; i++) {
+            if (slabClasses[i].chunkSize >= size) {
+                return i;
+            }
+        }
+        return slabClasses.length - 1;
+    }
+
+    private long allocate(int slabClassId) {
+        SlabClass slabClass = slabClasses[slabClassId];
+        long chunk;
+        if (!slabClass.freeChunks.isEmpty()) {
+            chunk = slabClass.freeChunks.pop();
+        } else {
+            if (slabClass.currentPage < 0 || slabClass.nextChunk == slabClass.chunksPerPage) {
+                int pageId = assignPage(slabClassId);
+                if (pageId < 0) {
+                    return NO_CHUNK;
+                }
+                slabClass.currentPage = pageId;
+                slabClass.nextChunk = 0;
+            }
+            chunk = chunk(slabClass.currentPage, slabClass.nextChunk++ * slabClass.chunkSize);
+        }
+        pageUsedChunks[page(chunk)]++;
+        return chunk;
+    }
+
+    private int assignPage(int slabClassId) {
+        if (freePages.isEmpty() && allocatedPages == maxPages) {
+            rebalance();
+        }
+        int pageId;
+        if (!freePages.isEmpty()) {
+            pageId = (int) freePages.pop();
+        } else if (allocatedPages < maxPages) {
+            pageId = allocatedPages++;
+            pages[pageId] = ByteBuffer.allocateDirect(pageSize).order(ByteOrder.nativeOrder());
+        } else {
+            return -1;
+        }
+        pageClass[pageId] = slabClassId;
+        pageUsedChunks[pageId] = 0;
+        return pageId;
+    }
+
+    private static long chunk(int page, int offset) {
+        return ((long) page << 32) | offset;
+    }
+
+    private static int page(long chunk) {
+        return (int) (chunk >>> 32);
+    }
+
+    private static int offset(long chunk) {
+        return (int) chunk;
+    }
+
+    private static final class SlabClass {
+        private final int chunkSize;
+        private final int chunksPerPage;
+        private final LongStack freeChunks = new LongStack();
+        private int currentPage = -1;
+        private int nextChunk;
+
+        private SlabClass(int chunkSize, int chunksPerPage) {
+            this.chunkSize = chunkSize;
+            this.chunksPerPage = chunksPerPage;
+        }
+    }
+}
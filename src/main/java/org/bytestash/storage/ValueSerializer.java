@@ -0,0 +1,14 @@
+package org.bytestash.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to the bytes kept off heap and back. The buffer given to deserialize holds exactly the
+ * serialized bytes of one value.
+ */
+public interface ValueSerializer<T> {
+
+    byte[] serialize(T value);
+
+    T deserialize(ByteBuffer buffer);
+}
@@ -1,10 +1,18 @@
 package org.bytestash.taskhandler;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 import org.bytestash.cache.CacheRegionType;
 import org.bytestash.cache.Crawlable;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Crawl task of one region of a node. There is a single instance per (node, region) that is reused every time
+ * the region is due, its pending flag keeps it in the queue at most once.
+ */
 @ToString
 @Getter
 public class NodeWork {
@@ -13,11 +21,28 @@ public class NodeWork {
 
     private final CacheRegionType cacheRegion;
 
-    final int pos;
+    @Setter
+    volatile int pos;
+
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean pending = new AtomicBoolean();
 
     public NodeWork(Crawlable crawlable, CacheRegionType cacheRegion, int pos) {
         this.cacheRegion = cacheRegion;
         this.pos = pos;
         this.crawlable = crawlable;
     }
+
+    public boolean isPending() {
+        return pending.get();
+    }
+
+    boolean markPending() {
+        return pending.compareAndSet(false, true);
+    }
+
+    void clearPending() {
+        pending.set(false);
+    }
 }
@@ -0,0 +1,15 @@
+package org.bytestash.taskhandler;
+
+/**
+ * What the TaskQueueHandler does with a task when the queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The task is dropped, it is offered again on the next schedule while it is still due.
+     */
+    DROP,
+    /**
+     * The producer waits until a crawler takes a task from the queue.
+     */
+    BLOCK
+}
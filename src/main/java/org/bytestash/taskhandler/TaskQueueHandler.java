@@ -1,39 +1,93 @@
 package org.bytestash.taskhandler;
 
-import org.bytestash.cache.CacheRegionType;
-import org.bytestash.cache.Crawlable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Bounded queue between the crawler managers and the node crawlers. A task stays pending from
+ * {@link #addTask(NodeWork)} until {@link #complete(NodeWork)}, adding it again meanwhile is coalesced.
+ */
 public class TaskQueueHandler {
     private static final Logger logger = LoggerFactory.getLogger(TaskQueueHandler.class);
-    private volatile Queue<NodeWork> queue;
+    private static final long BLOCK_PARK_NANOS = 100_000L;
 
-    private final int MAX_SIZE;
+    private final MpmcRing<NodeWork> queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
 
     public TaskQueueHandler(int maxSize) {
-        MAX_SIZE = maxSize;
-        queue = new LinkedList<>();
+        this(maxSize, OverflowPolicy.DROP);
+    }
 
+    public TaskQueueHandler(int maxSize, OverflowPolicy overflowPolicy) {
+        this.queue = new MpmcRing<>(maxSize);
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP : overflowPolicy;
     }
 
-    public synchronized void addTask(Crawlable crawlable, CacheRegionType cacheRegion, int pos) {
-        NodeWork work = new NodeWork(crawlable, cacheRegion, pos);
-        if (MAX_SIZE >= queue.size()) {
-            queue.add(work);
-            logger.debug("Task added for Node {} at pos {}",crawlable,pos);
+    /**
+     * Returns false when the task is already pending or it was dropped because the queue is full.
+     */
+    public boolean addTask(NodeWork work) {
+        if (!work.markPending()) {
+            coalesced.increment();
+            return false;
         }
+        while (!queue.offer(work)) {
+            if (OverflowPolicy.DROP.equals(overflowPolicy)) {
+                work.clearPending();
+                dropped.increment();
+                logger.debug("Queue full, dropped task {}", work);
+                return false;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (Thread.currentThread().isInterrupted()) {
+                work.clearPending();
+                dropped.increment();
+                return false;
+            }
+        }
+        enqueued.increment();
+        logger.debug("Task added for Node {} at pos {}", work.getCrawlable(), work.getPos());
+        return true;
+    }
 
+    public NodeWork removeTask() {
+        return queue.poll();
     }
 
-    public synchronized NodeWork removeTask() {
-        if (!queue.isEmpty()) {
-            return queue.poll();
-        } else {
-            return null;
-        }
+    /**
+     * Called by the crawler once the task is done, from then on it can be queued again.
+     */
+    public void complete(NodeWork work) {
+        work.clearPending();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public int getMaxSize() {
+        return queue.capacity();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
     }
 }
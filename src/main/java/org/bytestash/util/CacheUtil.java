@@ -2,8 +2,14 @@ package org.bytestash.util;
 
 import org.bytestash.cache.Crawlable;
 import org.bytestash.crawler.CrawlerManager;
+import org.bytestash.crawler.CrawlerPoolType;
 import org.bytestash.crawler.CrawlerType;
 import org.bytestash.crawler.timeBasedCrawler.TTLBasedCrawlerManager;
+import org.bytestash.crawler.timingWheelCrawler.TimingWheelCrawlerManager;
+import org.bytestash.router.JumpHashRouter;
+import org.bytestash.router.NodeRouter;
+import org.bytestash.router.RingRouter;
+import org.bytestash.router.RouterType;
 import org.bytestash.taskhandler.TaskQueueHandler;
 
 import java.util.List;
@@ -16,12 +22,22 @@ public class CacheUtil {
 
     public static <T> CrawlerManager<T> getCrawlerManagerFromType(CrawlerType crawlerType,
                                                                   List<? extends Crawlable> crawlables,int count,
-                                                                  TaskQueueHandler queueHandler) {
+                                                                  TaskQueueHandler queueHandler, CrawlerPoolType poolType) {
         CrawlerManager<T> crawlerManager;
         switch (crawlerType) {
-            case TTL -> crawlerManager = new TTLBasedCrawlerManager<>(crawlables, count, queueHandler);
-            default -> crawlerManager = new TTLBasedCrawlerManager<>(crawlables, count, queueHandler);
+            case TTL -> crawlerManager = new TTLBasedCrawlerManager<>(crawlables, count, queueHandler, poolType);
+            case TIMING_WHEEL -> crawlerManager = new TimingWheelCrawlerManager<>(crawlables, poolType);
+            default -> crawlerManager = new TTLBasedCrawlerManager<>(crawlables, count, queueHandler, poolType);
         }
         return crawlerManager;
     }
+
+    public static NodeRouter getNodeRouterFromType(RouterType routerType, int nodeCount) {
+        NodeRouter nodeRouter;
+        switch (routerType == null ? RouterType.JUMP : routerType) {
+            case RING -> nodeRouter = new RingRouter(nodeCount);
+            default -> nodeRouter = new JumpHashRouter(nodeCount);
+        }
+        return nodeRouter;
+    }
 }
@@ -0,0 +1,32 @@
+package org.bytestash.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads without requiring the runtime to have them, the build targets Java 17.
+ */
+public final class VirtualThreads {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+
+    }
+
+    /**
+     * A new virtual thread per task executor, or null when the runtime has no virtual threads.
+     */
+    public static ExecutorService newExecutorOrNull() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.debug("Virtual threads are not available in this runtime");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.bytestash.cache;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class CacheNodeConcurrencyTest extends TestCase {
+
+    public void testRegionsStayConsistentUnderConcurrentAccess() throws InterruptedException {
+        CacheNode<Integer> cacheNode = new CacheNode<>(1000, 0);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 200_000; i++) {
+                    String key = String.valueOf(random.nextInt(5000));
+                    switch (random.nextInt(4)) {
+                        case 0 -> cacheNode.put(key, i);
+                        case 1 -> cacheNode.remove(key);
+                        default -> cacheNode.get(key);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cacheNode.checkCacheAndRegion();
+        assertTrue(cacheNode.getFilledCapacity() <= cacheNode.getCapacity());
+    }
+
+    public void testItemsMoveBetweenRegions() {
+        CacheNode<Integer> cacheNode = new CacheNode<>(100, 0);
+        for (int i = 0; i < 100; i++) {
+            cacheNode.put(String.valueOf(i), i);
+        }
+        assertEquals(Integer.valueOf(50), cacheNode.get("50"));
+        assertEquals(1, cacheNode.regions.get(CacheRegionType.WARM).size());
+        assertEquals(10, cacheNode.regions.get(CacheRegionType.HOT).size());
+        cacheNode.checkCacheAndRegion();
+    }
+
+    public void testSingleWriterModeAppliesQueuedWrites() throws InterruptedException {
+        CacheNode<Integer> cacheNode = new CacheNode<>(1000, 0f, 0f, 240, 0, NodeExecutionMode.SINGLE_WRITER);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 100;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    cacheNode.put(String.valueOf(offset + i), offset + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        cacheNode.putAsync("last", -1).join();
+        assertEquals(Integer.valueOf(-1), cacheNode.get("last"));
+        assertEquals(Integer.valueOf(250), cacheNode.get("250"));
+        assertEquals(Integer.valueOf(250), cacheNode.remove("250"));
+        assertNull(cacheNode.get("250"));
+        assertEquals(400, cacheNode.getFilledCapacity());
+        cacheNode.checkCacheAndRegion();
+        cacheNode.shutdown();
+    }
+
+    public void testWriterCompletesTasksThatThrowErrors() {
+        NodeWriter writer = new NodeWriter(0, () -> {});
+        try {
+            writer.submit(() -> {
+                throw new AssertionError("failed task");
+            }).join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        assertEquals("next", writer.submit(() -> "next").join());
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,263 @@
+package org.bytestash.cache;
+
+import junit.framework.TestCase;
+import org.bytestash.evictionpolicy.AdmissionPolicy;
+import org.bytestash.evictionpolicy.EvictionInfo;
+import org.bytestash.stats.HistogramSnapshot;
+import org.bytestash.stats.NodeStats;
+import org.bytestash.stats.StatsSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CacheNodeTest extends TestCase {
+
+    public void testWeightedCapacity() {
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder()
+                                                 .withWeigher((key, value) -> value.length())
+                                                 .build();
+        CacheNode<String> cacheNode = new CacheNode<>(1000, 0f, 0f, 240, 0, config);
+        for (int i = 0; i < 50; i++) {
+            cacheNode.put("key-" + i, "x".repeat(100));
+        }
+        assertTrue(cacheNode.getWeightedSize() <= 1000);
+        assertTrue(cacheNode.getFilledCapacity() < 10);
+        cacheNode.put("key-49", "x".repeat(10));
+        assertEquals("x".repeat(10), cacheNode.get("key-49"));
+        cacheNode.put("huge", "x".repeat(5000));
+        assertNull(cacheNode.get("huge"));
+        assertTrue(cacheNode.getWeightedSize() <= 1000);
+        cacheNode.checkCacheAndRegion();
+    }
+
+    public void testPerEntryTtl() throws InterruptedException {
+        CacheNode<String> cacheNode = new CacheNode<>(100, 240, 0);
+        cacheNode.put("short", "value", Duration.ofMillis(50));
+        cacheNode.put("long", "value");
+        assertEquals("value", cacheNode.get("short"));
+        Thread.sleep(100);
+        assertNull(cacheNode.get("short"));
+        assertEquals("value", cacheNode.get("long"));
+        assertEquals(1, cacheNode.getFilledCapacity());
+        cacheNode.checkCacheAndRegion();
+    }
+
+    public void testIncrementalCrawl() throws InterruptedException {
+        CacheNode<String> cacheNode = new CacheNode<>(2000, 0.1f, 0.2f, 240, 0);
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                cacheNode.put("key-" + i, "value", Duration.ofMillis(20));
+            } else {
+                cacheNode.put("key-" + i, "value");
+            }
+        }
+        Thread.sleep(50);
+        int coldSize = 1000 - (int) (2000 * 0.1f);
+        EvictionInfo info;
+        int slices = 0;
+        do {
+            info = cacheNode.crawl(CacheRegionType.COLD, 100, Long.MAX_VALUE);
+            slices++;
+            cacheNode.put("new-" + slices, "value");
+            cacheNode.remove("key-" + (2 * slices - 1));
+            cacheNode.checkCacheAndRegion();
+        } while (!info.isDone());
+        assertTrue(slices > coldSize / 100);
+        assertTrue(info.getScanned() <= coldSize);
+        assertTrue(info.getRemoved() >= coldSize / 2);
+        assertNull(cacheNode.get("key-998"));
+        assertEquals("value", cacheNode.get("key-999"));
+    }
+
+    public void testCrawlerRefreshesWarmEntries() throws InterruptedException {
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder().withRefreshAfterWrite(Duration.ofMillis(50)).build();
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.1f, 0.2f, 240, 0, config);
+        AtomicInteger loads = new AtomicInteger();
+        cacheNode.getOrLoad("key", () -> CompletableFuture.completedFuture("value-" + loads.incrementAndGet()), 0, 0).join();
+        for (int i = 0; i < 20; i++) {
+            cacheNode.put("filler-" + i, "value");
+        }
+        assertEquals("value-1", cacheNode.get("key"));
+        Thread.sleep(100);
+        assertTrue(cacheNode.crawl(CacheRegionType.WARM, 100, Long.MAX_VALUE).isDone());
+        assertEquals(2, loads.get());
+        assertEquals("value-2", cacheNode.get("key"));
+    }
+
+    public void testCrawlerStartsRefreshesOutsideTheLock() throws InterruptedException {
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder().withRefreshAfterWrite(Duration.ofMillis(50)).build();
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.1f, 0.2f, 240, 0, config);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicBoolean writable = new AtomicBoolean();
+        cacheNode.getOrLoad("key", () -> {
+            if (loads.incrementAndGet() > 1) {
+                try {
+                    CompletableFuture.runAsync(() -> cacheNode.put("other", "value")).get(1, TimeUnit.SECONDS);
+                    writable.set(true);
+                } catch (Exception e) {
+                    writable.set(false);
+                }
+            }
+            return CompletableFuture.completedFuture("value-" + loads.get());
+        }, 0, 0).join();
+        for (int i = 0; i < 20; i++) {
+            cacheNode.put("filler-" + i, "value");
+        }
+        cacheNode.get("key");
+        Thread.sleep(100);
+        cacheNode.crawl(CacheRegionType.WARM, 100, Long.MAX_VALUE);
+        assertEquals(2, loads.get());
+        assertTrue(writable.get());
+        assertEquals("value-2", cacheNode.get("key"));
+    }
+
+    public void testTimerWheelExpiresShortenedTtl() {
+        AtomicLong now = new AtomicLong();
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder().withTimerWheel(true).withTicker(now::get).build();
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.1f, 0.2f, 240, 0, config);
+        cacheNode.put("key", "value", Duration.ofDays(1));
+        cacheNode.put("key", "value", Duration.ofSeconds(1));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, cacheNode.expireEntries());
+        assertEquals(0, cacheNode.getFilledCapacity());
+        cacheNode.checkCacheAndRegion();
+    }
+
+    public void testTinyLfuResistsScans() {
+        assertTrue(workingSetHitsAfterScan(AdmissionPolicy.TINY_LFU) > 2 * workingSetHitsAfterScan(AdmissionPolicy.ALWAYS));
+    }
+
+    private int workingSetHitsAfterScan(AdmissionPolicy admissionPolicy) {
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder().withAdmissionPolicy(admissionPolicy).build();
+        CacheNode<String> cacheNode = new CacheNode<>(1000, 0.1f, 0.2f, 240, 0, config);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 600; i++) {
+                if (cacheNode.get("hot-" + i) == null) {
+                    cacheNode.put("hot-" + i, "value");
+                }
+            }
+        }
+        for (int i = 0; i < 5000; i++) {
+            cacheNode.put("scan-" + i, "value");
+        }
+        cacheNode.checkCacheAndRegion();
+        int hits = 0;
+        for (int i = 0; i < 600; i++) {
+            if (cacheNode.get("hot-" + i) != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    public void testAdaptiveSizingGrowsTheRegionWithGhostHits() {
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder().withAdaptiveSizing(true).build();
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.1f, 0.2f, 240, 0, config);
+        int hits = 0;
+        for (int round = 0; round < 50; round++) {
+            hits = 0;
+            for (int i = 0; i < 90; i++) {
+                if (cacheNode.get("key-" + i) == null) {
+                    cacheNode.put("key-" + i, "value");
+                } else {
+                    hits++;
+                }
+            }
+        }
+        assertTrue(cacheNode.getRegionSize(CacheRegionType.COLD) > 70);
+        assertTrue(cacheNode.getRegionSize(CacheRegionType.WARM) >= 5);
+        assertEquals(100, cacheNode.getRegionSize(CacheRegionType.HOT) + cacheNode.getRegionSize(CacheRegionType.WARM)
+                                 + cacheNode.getRegionSize(CacheRegionType.COLD));
+        assertTrue(hits > 0);
+        cacheNode.checkCacheAndRegion();
+    }
+
+    public void testStatsCountOperations() throws InterruptedException {
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.2f, 0.3f, 240, 0);
+        for (int i = 0; i < 150; i++) {
+            cacheNode.put("key-" + i, "value");
+        }
+        cacheNode.put("short", "value", Duration.ofMillis(20));
+        for (int i = 140; i < 150; i++) {
+            cacheNode.get("key-" + i);
+        }
+        cacheNode.get("key-0");
+        cacheNode.remove("key-149");
+        Thread.sleep(50);
+        cacheNode.get("short");
+
+        StatsSnapshot stats = cacheNode.getStats();
+        assertEquals(151, stats.getPutCount());
+        assertEquals(10, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getExpiredCount());
+        assertEquals(1, stats.getExplicitRemovalCount());
+        assertEquals(151 - 2 - stats.getEntryCount(), stats.getSizeEvictionCount());
+        assertTrue(stats.getDemotionCount() > 0);
+        assertEquals(cacheNode.getFilledCapacity(), stats.getEntryCount());
+        assertTrue(stats.getGetLatency().getCount() <= 12);
+        assertTrue(stats.getPutLatency().getCount() <= 151);
+
+        for (int i = 0; i < 100 * NodeStats.LATENCY_SAMPLE_RATE; i++) {
+            cacheNode.get("key-140");
+        }
+        HistogramSnapshot latency = cacheNode.getStats().getGetLatency();
+        assertTrue(latency.getCount() > 50 && latency.getCount() < 200);
+        assertTrue(latency.percentileNanos(0.99) >= latency.percentileNanos(0.5));
+    }
+
+    public void testBatchedPutAllAndGetAll() {
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.2f, 0.3f, 240, 0);
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            keys.add("key-" + i);
+            values.add("value-" + i);
+        }
+        cacheNode.putAll(keys, values);
+        cacheNode.putAll(List.of("key-1", "key-1"), List.of("first", "second"));
+        assertEquals(20, cacheNode.regions.get(CacheRegionType.HOT).size());
+        assertEquals(Arrays.asList("second", "value-2", null), cacheNode.getAll(List.of("key-1", "key-2", "missing")));
+        assertEquals(2, cacheNode.regions.get(CacheRegionType.WARM).size());
+        assertEquals(2, cacheNode.getStats().getHitCount());
+        assertEquals(1, cacheNode.getStats().getMissCount());
+        cacheNode.checkCacheAndRegion();
+    }
+
+    public void testDiskTierKeepsColdEvictions() throws Exception {
+        Path directory = Files.createTempDirectory("disk-tier");
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder()
+                                                 .withDiskTierDirectory(directory)
+                                                 .withDiskTierCapacity(1L << 20)
+                                                 .withDiskSegmentSize(64 << 10)
+                                                 .build();
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0.2f, 0.3f, 240, 0, config);
+        try {
+            for (int i = 0; i < 1000; i++) {
+                cacheNode.put("key-" + i, "value-" + i);
+            }
+            assertTrue(cacheNode.getFilledCapacity() <= 100);
+            assertTrue(cacheNode.getDiskEntryCount() > 800);
+            assertEquals("value-3", cacheNode.get("key-3"));
+            assertEquals(CacheRegionType.WARM, cacheNode.entries().stream()
+                                                       .filter(entry -> "key-3".equals(entry.getKey()))
+                                                       .findFirst().orElseThrow().getRegion());
+            assertEquals("value-4", cacheNode.remove("key-4"));
+            assertNull(cacheNode.get("key-4"));
+            cacheNode.put("key-5", "new");
+            assertEquals("new", cacheNode.get("key-5"));
+            cacheNode.checkCacheAndRegion();
+        } finally {
+            cacheNode.shutdown();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.bytestash.cache;
+
+import junit.framework.TestCase;
+
+public class GhostListTest extends TestCase {
+
+    public void testKeepsTheMostRecentHashes() {
+        GhostList ghosts = new GhostList(100);
+        for (int i = 0; i < 1000; i++) {
+            ghosts.add(i * 64);
+        }
+        for (int i = 0; i < 900; i++) {
+            assertFalse(ghosts.remove(i * 64));
+        }
+        for (int i = 900; i < 1000; i += 2) {
+            assertTrue(ghosts.remove(i * 64));
+        }
+        for (int i = 901; i < 1000; i += 2) {
+            assertTrue(ghosts.remove(i * 64));
+        }
+        assertFalse(ghosts.remove(950 * 64));
+    }
+
+    public void testRemovedSlotsAreReused() {
+        GhostList ghosts = new GhostList(4);
+        ghosts.add(1);
+        ghosts.add(2);
+        assertTrue(ghosts.remove(1));
+        ghosts.add(3);
+        ghosts.add(4);
+        ghosts.add(5);
+        ghosts.add(6);
+        assertFalse(ghosts.remove(2));
+        assertTrue(ghosts.remove(3));
+        assertTrue(ghosts.remove(6));
+    }
+}
@@ -0,0 +1,147 @@
+package org.bytestash.cache;
+
+import junit.framework.TestCase;
+import org.bytestash.creator.LongKeyCacheFactory;
+import org.bytestash.creator.LongKeyCacheManager;
+import org.bytestash.evictionpolicy.EvictionInfo;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LongKeyCacheNodeTest extends TestCase {
+
+    public void testRegionsAndEviction() {
+        LongKeyCacheNode<String> node = new LongKeyCacheNode<>(100, 0.1f, 0.2f, 240, 0);
+        for (long key = 0; key < 100; key++) {
+            node.put(key, "value-" + key);
+        }
+        assertEquals(10, node.size(CacheRegionType.HOT));
+        assertEquals(70, node.size(CacheRegionType.COLD));
+        assertNull(node.get(19));
+        for (long key = 20; key < 30; key++) {
+            assertEquals("value-" + key, node.get(key));
+        }
+        assertEquals(10, node.size(CacheRegionType.WARM));
+        for (long key = 100; key < 200; key++) {
+            node.put(key, "value-" + key);
+        }
+        assertEquals(90, node.getFilledCapacity());
+        for (long key = 20; key < 30; key++) {
+            assertEquals("value-" + key, node.get(key));
+        }
+        assertNull(node.get(30));
+        assertEquals("value-199", node.remove(199));
+        assertNull(node.get(199));
+        assertEquals(89, node.getFilledCapacity());
+    }
+
+    public void testTableAgainstHashMap() {
+        LongKeyCacheNode<Long> node = new LongKeyCacheNode<>(1 << 16, 0.1f, 0.2f, 240, 0);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(20000) * 0x100000000L;
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key), node.remove(key));
+            } else {
+                expected.put(key, (long) i);
+                node.put(key, (long) i);
+            }
+        }
+        assertEquals(expected.size(), node.getFilledCapacity());
+        expected.forEach((key, value) -> assertEquals(value, node.get(key)));
+    }
+
+    public void testCrawlRemovesExpiredEntries() {
+        AtomicLong now = new AtomicLong();
+        LongKeyCacheNode<String> node = new LongKeyCacheNode<>(1000, 0.1f, 0.2f, 60, 0, now::get);
+        for (long key = 0; key < 500; key++) {
+            node.put(key, "value");
+        }
+        node.put(1000, "value", Duration.ofMinutes(5));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals("value", node.get(0));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(40));
+        EvictionInfo info = node.crawl(CacheRegionType.COLD, 100, Long.MAX_VALUE);
+        assertFalse(info.isDone());
+        info = node.removeItems(CacheRegionType.COLD);
+        assertTrue(info.isDone());
+        node.removeItems(CacheRegionType.HOT);
+        node.removeItems(CacheRegionType.WARM);
+        assertEquals(2, node.getFilledCapacity());
+        assertEquals("value", node.get(0));
+        assertEquals("value", node.get(1000));
+    }
+
+    public void testCrawlPassEndsWhileEntriesAreRead() {
+        LongKeyCacheNode<String> node = new LongKeyCacheNode<>(100, 0.1f, 0.2f, 240, 0);
+        for (long key = 0; key < 100; key++) {
+            node.put(key, "value");
+        }
+        for (long key = 80; key < 100; key++) {
+            node.get(key);
+        }
+        int slices = 0;
+        long next = 80;
+        while (!node.crawl(CacheRegionType.WARM, 1, Long.MAX_VALUE).isDone()) {
+            node.get(next);
+            next = next == 99 ? 80 : next + 1;
+            assertTrue(++slices < 100);
+        }
+    }
+
+    public void testReadsRacingWrites() throws InterruptedException {
+        LongKeyCacheNode<Long> node = new LongKeyCacheNode<>(1000, 0.1f, 0.2f, 240, 0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong wrong = new AtomicLong();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                Random random = new Random();
+                while (running.get()) {
+                    long key = random.nextInt(5000);
+                    Long value = node.get(key);
+                    if (value != null && value != key) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < 500000; i++) {
+            long key = random.nextInt(5000);
+            if (random.nextInt(4) == 0) {
+                node.remove(key);
+            } else {
+                node.put(key, key);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    public void testManager() {
+        LongKeyCacheManager<String> cache = LongKeyCacheFactory.<String>builder()
+                                                    .withNodes(4)
+                                                    .withCapacity(10000L)
+                                                    .build()
+                                                    .create();
+        for (long key = 0; key < 1000; key++) {
+            cache.put(key, Long.toString(key));
+        }
+        assertEquals(1000, cache.size());
+        assertEquals("42", cache.get(42));
+        assertEquals("42", cache.remove(42));
+        assertNull(cache.get(42));
+        assertEquals(1, cache.getStats().getHitCount());
+    }
+}
@@ -0,0 +1,33 @@
+package org.bytestash.cache;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PendingLoadsTest extends TestCase {
+
+    public void testExpiredNegativeEntriesAreSweptWhenFull() {
+        AtomicLong now = new AtomicLong();
+        PendingLoads<String> pendingLoads = new PendingLoads<>(now::get);
+        long negativeTtl = TimeUnit.SECONDS.toNanos(1);
+        for (int i = 0; i <= 10_000; i++) {
+            pendingLoads.load("key-" + i, () -> null, () -> CompletableFuture.completedFuture(null), value -> {
+            }, 0, negativeTtl);
+        }
+        assertEquals(10_000, pendingLoads.size());
+        now.addAndGet(2 * negativeTtl);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            pendingLoads.load("other", () -> null, () -> {
+                loads.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }, value -> {
+            }, 0, negativeTtl);
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, pendingLoads.size());
+    }
+}
@@ -0,0 +1,38 @@
+package org.bytestash.cache;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TimerWheelTest extends TestCase {
+
+    public void testExpiresOnlyDueItems() {
+        TimerWheel<Integer> timerWheel = new TimerWheel<>(0L);
+        long[] delays = {1, 5, 90, 4000, 200_000};
+        for (int i = 0; i < delays.length; i++) {
+            CacheItem<Integer> item = new CacheItem<>(i, i, CacheRegionType.HOT, 0);
+            item.expiresAt = TimeUnit.SECONDS.toNanos(delays[i]);
+            timerWheel.schedule(item);
+        }
+        List<Object> expired = new ArrayList<>();
+        assertEquals(0, timerWheel.advance(TimeUnit.MILLISECONDS.toNanos(500), item -> expired.add(item.getKey())));
+        assertEquals(2, timerWheel.advance(TimeUnit.SECONDS.toNanos(10), item -> expired.add(item.getKey())));
+        assertEquals(List.of(0, 1), expired);
+        assertEquals(1, timerWheel.advance(TimeUnit.SECONDS.toNanos(200), item -> expired.add(item.getKey())));
+        assertEquals(1, timerWheel.advance(TimeUnit.SECONDS.toNanos(5000), item -> expired.add(item.getKey())));
+        assertEquals(1, timerWheel.advance(TimeUnit.SECONDS.toNanos(300_000), item -> expired.add(item.getKey())));
+        assertEquals(List.of(0, 1, 2, 3, 4), expired);
+    }
+
+    public void testRescheduledItemIsKept() {
+        TimerWheel<Integer> timerWheel = new TimerWheel<>(0L);
+        CacheItem<Integer> item = new CacheItem<>(1, 1, CacheRegionType.HOT, 0);
+        item.expiresAt = TimeUnit.SECONDS.toNanos(2);
+        timerWheel.schedule(item);
+        item.expiresAt = TimeUnit.SECONDS.toNanos(30);
+        assertEquals(0, timerWheel.advance(TimeUnit.SECONDS.toNanos(5), expiredItem -> fail()));
+        assertEquals(1, timerWheel.advance(TimeUnit.SECONDS.toNanos(31), expiredItem -> { }));
+    }
+}
@@ -0,0 +1,38 @@
+package org.bytestash.crawler;
+
+import junit.framework.TestCase;
+import org.bytestash.cache.CacheNode;
+import org.bytestash.crawler.timeBasedCrawler.TTLBasedCrawlerManager;
+import org.bytestash.taskhandler.TaskQueueHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TTLBasedCrawlerManagerTest extends TestCase {
+
+    public void testExpiredEntriesAreCrawled() throws InterruptedException {
+        List<CacheNode<String>> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            CacheNode<String> node = new CacheNode<>(1000, 1, i);
+            for (int j = 0; j < 200; j++) {
+                node.put("key-" + j, "value");
+            }
+            nodes.add(node);
+        }
+        TaskQueueHandler queueHandler = new TaskQueueHandler(100);
+        TTLBasedCrawlerManager<String> crawlerManager = new TTLBasedCrawlerManager<>(nodes, 2, queueHandler);
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (nodes.stream().anyMatch(node -> node.getFilledCapacity() > 0) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            for (CacheNode<String> node : nodes) {
+                assertEquals(0, node.getFilledCapacity());
+                node.checkCacheAndRegion();
+            }
+            assertEquals(0, queueHandler.getDroppedCount());
+        } finally {
+            crawlerManager.stopTaskScheduler();
+        }
+    }
+}
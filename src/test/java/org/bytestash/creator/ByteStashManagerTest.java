@@ -0,0 +1,298 @@
+package org.bytestash.creator;
+
+import junit.framework.TestCase;
+import org.bytestash.cache.NodeEntry;
+import org.bytestash.key.CacheKey;
+import org.bytestash.stats.StatsBean;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ByteStashManagerTest extends TestCase {
+
+    public void testBatchOperations() {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().withNodes(4).withCapacity(100000L).build().create();
+        Map<Object, String> entries = new HashMap<>();
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            entries.put("key-" + i, "value-" + i);
+            keys.add("key-" + i);
+        }
+        manager.putAll(entries);
+        keys.add("missing");
+
+        Map<Object, String> values = manager.getAll(keys, String.class);
+        assertEquals(entries, values);
+        assertEquals("value-42", manager.get("key-42", String.class));
+
+        Map<Object, String> removed = manager.removeAll(keys.subList(0, 100), String.class);
+        assertEquals(100, removed.size());
+        assertEquals("value-0", removed.get("key-0"));
+        assertNull(manager.get("key-0", String.class));
+        assertEquals(4900, manager.getAll(keys, String.class).size());
+    }
+
+    public void testMigrationKeepsRegionAndTtl() throws InterruptedException {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().withNodes(4).withCapacity(50000L).build().create();
+        for (int i = 0; i < 20000; i++) {
+            manager.put("key-" + i, "value-" + i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            manager.get("key-" + i, String.class);
+        }
+        for (int i = 0; i < 100; i++) {
+            manager.put("short-" + i, "value", Duration.ofMillis(300));
+        }
+        Map<Object, Object> regions = new HashMap<>();
+        manager.nodes.forEach(node -> node.entries().forEach(entry -> regions.put(entry.getKey(), entry.getRegion())));
+
+        manager.addNode().join();
+        Map<Object, Object> migrated = new HashMap<>();
+        manager.nodes.forEach(node -> node.entries().forEach(entry -> migrated.put(entry.getKey(), entry.getRegion())));
+        // the short entries can expire while the node is added, their ttl is checked below
+        regions.keySet().removeIf(key -> ((CacheKey) key).getKey().toString().startsWith("short-"));
+        migrated.keySet().removeIf(key -> ((CacheKey) key).getKey().toString().startsWith("short-"));
+        assertEquals(regions, migrated);
+        assertTrue(manager.nodes.get(4).getFilledCapacity() > 0);
+
+        Thread.sleep(400);
+        for (int i = 0; i < 100; i++) {
+            assertNull(manager.get("short-" + i, String.class));
+        }
+        manager.put("expiring", "value", Duration.ofMillis(20));
+        Thread.sleep(50);
+        assertNull(manager.remove("expiring", String.class));
+    }
+
+    public void testCloseDeletesDiskTierFiles() throws Exception {
+        Path directory = Files.createTempDirectory("disk-tier");
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder()
+                                                   .withNodes(2)
+                                                   .withCapacity(100L)
+                                                   .withDiskTierDirectory(directory)
+                                                   .withDiskTierCapacity(8L << 20)
+                                                   .build()
+                                                   .create();
+        for (int i = 0; i < 1000; i++) {
+            manager.put("key-" + i, "value-" + i);
+        }
+        assertEquals("value-1", manager.get("key-1", String.class));
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        manager.close();
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    public void testRemoveNodeKeepsDiskTierEntries() throws Exception {
+        Path directory = Files.createTempDirectory("disk-tier");
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder()
+                                                   .withNodes(2)
+                                                   .withCapacity(100L)
+                                                   .withDiskTierDirectory(directory)
+                                                   .withDiskTierCapacity(8L << 20)
+                                                   .build()
+                                                   .create();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                manager.put("key-" + i, "value-" + i);
+            }
+            manager.removeNode().get();
+            for (int i = 0; i < 1000; i++) {
+                assertEquals("value-" + i, manager.get("key-" + i, String.class));
+            }
+        } finally {
+            manager.close();
+        }
+    }
+
+    public void testAsyncView() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "async-test"));
+        try {
+            ByteStashManager<String> manager = ByteStashFactory.<String>builder().withAsyncExecutor(executor).build().create();
+            AsyncCacheManager<Object, String> async = manager.async();
+            async.putAsync("key", "value").get();
+            assertEquals("value", async.getAsync("key", String.class).get());
+            String[] thread = new String[1];
+            AsyncCacheManager<Object, String> recording = manager.async(task -> executor.execute(() -> {
+                thread[0] = Thread.currentThread().getName();
+                task.run();
+            }));
+            assertEquals("value", recording.getAsync("key", String.class).get());
+            assertEquals("async-test", thread[0]);
+            async.putAllAsync(Map.of("a", "1", "b", "2")).get();
+            assertEquals(Map.of("a", "1", "b", "2"), async.getAllAsync(List.of("a", "b", "c"), String.class).get());
+            assertEquals("value", async.removeAsync("key", String.class).get());
+            assertNull(manager.get("key", String.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testLoadingCoalescesMisses() throws InterruptedException {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().build().create();
+        LoadingCacheManager<Object, String> loading = manager.loading(Duration.ofMillis(200), Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(16);
+        String[] results = new String[16];
+        for (int i = 0; i < 16; i++) {
+            int thread = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    results[thread] = loading.get("hot", String.class, key -> {
+                        loads.incrementAndGet();
+                        sleep(50);
+                        return "loaded-" + key;
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        assertEquals(1, loads.get());
+        for (String result : results) {
+            assertEquals("loaded-hot", result);
+        }
+        assertEquals("loaded-hot", manager.get("hot", String.class));
+
+        assertNull(loading.get("absent", String.class, key -> null));
+        assertNull(loading.get("absent", String.class, key -> "not asked"));
+        manager.put("absent", "written");
+        assertEquals("written", loading.get("absent", String.class, key -> "not asked"));
+
+        try {
+            loading.get("slow", String.class, key -> {
+                sleep(1000);
+                return "late";
+            });
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    public void testLoadingMissIsCountedOnce() {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().build().create();
+        LoadingCacheManager<Object, String> loading = manager.loading();
+        assertEquals("loaded", loading.get("key", String.class, key -> "loaded"));
+        assertEquals(1, manager.getStats().getMissCount());
+        assertEquals("loaded", loading.get("key", String.class, key -> "not asked"));
+        assertEquals(1, manager.getStats().getHitCount());
+        try {
+            loading.get("failing", String.class, key -> {
+                throw new IllegalStateException("backend down");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("backend down", e.getMessage());
+        }
+    }
+
+    public void testRefreshAfterWrite() throws InterruptedException {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().withRefreshAfterWrite(Duration.ofMillis(50)).build().create();
+        LoadingCacheManager<Object, String> loading = manager.loading();
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("value-1", loading.get("key", String.class, key -> "value-" + loads.incrementAndGet()));
+        Thread.sleep(100);
+        assertEquals("value-1", loading.get("key", String.class, key -> "not asked"));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!"value-2".equals(manager.get("key", String.class)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("value-2", manager.get("key", String.class));
+        assertEquals(2, loads.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void testStatsMBeans() throws Exception {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().withNodes(2).withJmxName("stats-test").build().create();
+        try {
+            manager.put("key", "value");
+            manager.get("key", String.class);
+            manager.get("missing", String.class);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(StatsBean.cacheName("stats-test"), "HitCount"));
+            assertEquals(1L, server.getAttribute(StatsBean.cacheName("stats-test"), "MissCount"));
+            long nodeHits = (Long) server.getAttribute(StatsBean.nodeName("stats-test", 0), "HitCount")
+                                    + (Long) server.getAttribute(StatsBean.nodeName("stats-test", 1), "HitCount");
+            assertEquals(1L, nodeHits);
+            assertEquals(2, manager.getNodeStats().size());
+        } finally {
+            manager.unregisterMBeans();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(StatsBean.cacheName("stats-test")));
+    }
+
+    public void testSnapshotAndRestore() throws Exception {
+        ByteStashManager<String> manager = ByteStashFactory.<String>builder().withNodes(4).withCapacity(4000L).build().create();
+        for (int i = 0; i < 3000; i++) {
+            manager.put("key-" + i, "value-" + i);
+        }
+        for (int i = 0; i < 3000; i += 7) {
+            manager.get("key-" + i, String.class);
+        }
+        manager.put("short", "value", Duration.ofMillis(500));
+        Path directory = Files.createTempDirectory("bytestash");
+        Path file = directory.resolve("cache.snapshot");
+        try {
+            long written = manager.snapshot(file);
+            assertEquals(manager.getStats().getEntryCount(), written);
+            try (var files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+            Thread.sleep(600);
+
+            ByteStashManager<String> restored = ByteStashFactory.<String>builder().withNodes(4).withCapacity(4000L).build().create();
+            assertEquals(written - 1, restored.restore(file));
+            assertNull(restored.get("short", String.class));
+            for (int node = 0; node < 4; node++) {
+                List<NodeEntry<String>> before = manager.nodes.get(node).entries();
+                List<NodeEntry<String>> after = restored.nodes.get(node).entries();
+                before.removeIf(entry -> "short".equals(((CacheKey) entry.getKey()).getKey()));
+                assertEquals(before.size(), after.size());
+                for (int i = 0; i < before.size(); i++) {
+                    assertEquals(before.get(i).getKey(), after.get(i).getKey());
+                    assertEquals(before.get(i).getRegion(), after.get(i).getRegion());
+                }
+            }
+
+            ByteStashManager<String> resized = ByteStashFactory.<String>builder().withNodes(3).withCapacity(30000L).build().create();
+            resized.restore(file);
+            for (NodeEntry<String> entry : manager.nodes.get(0).entries()) {
+                assertEquals(entry.getValue(), resized.get(((CacheKey) entry.getKey()).getKey(), String.class));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.bytestash.key;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class KeyCodecsTest extends TestCase {
+
+    private record Point(int x, int y) {
+    }
+
+    private final KeyCodecs codecs = KeyCodecs.defaults();
+
+    public void testIntegralNumbersAreTheSameKey() throws IOException {
+        CacheKey key = codecs.encode(5L, String.class);
+        assertEquals(key, codecs.encode(5, String.class));
+        assertEquals(key, codecs.encode((short) 5, String.class));
+        assertEquals(key, codecs.encode((byte) 5, String.class));
+        assertEquals(key.hashCode(), codecs.encode(5, String.class).hashCode());
+        assertEquals(5L, codecs.encode(5, String.class).getKey());
+        assertFalse(key.equals(codecs.encode(5.0, String.class)));
+        assertFalse(key.equals(codecs.encode(5L, Integer.class)));
+    }
+
+    public void testKeysWithEqualsAreUsedAsIs() throws IOException {
+        Point point = new Point(1, 2);
+        assertSame(point, codecs.encode(point, String.class).getKey());
+        assertEquals(codecs.encode(point, String.class), codecs.encode(new Point(1, 2), String.class));
+        assertEquals("key", codecs.encode("key", String.class).getKey());
+    }
+
+    public void testMutableCollectionKeysAreSnapshotted() throws IOException {
+        List<String> list = new ArrayList<>(List.of("a", "b"));
+        CacheKey key = codecs.encode(list, String.class);
+        list.add("c");
+        assertEquals(key, codecs.encode(List.of("a", "b"), String.class));
+        assertFalse(key.equals(codecs.encode(list, String.class)));
+    }
+}
@@ -0,0 +1,92 @@
+package org.bytestash.router;
+
+import junit.framework.TestCase;
+import org.bytestash.creator.ByteStashFactory;
+import org.bytestash.creator.ByteStashManager;
+import org.bytestash.key.CacheKey;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NodeRouterTest extends TestCase {
+
+    private static final int KEYS = 100_000;
+
+    public void testJumpHashMovesOnlyToNewNode() {
+        assertMovement(new JumpHashRouter(8), true);
+    }
+
+    public void testRingMovesAboutOneNth() {
+        assertMovement(new RingRouter(8), false);
+    }
+
+    public void testRoutesNegativeHashes() {
+        NodeRouter jump = new JumpHashRouter(5);
+        NodeRouter ring = new RingRouter(5);
+        for (int hash : new int[]{Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE}) {
+            assertTrue(jump.route(hash) >= 0 && jump.route(hash) < 5);
+            assertTrue(ring.route(hash) >= 0 && ring.route(hash) < 5);
+        }
+    }
+
+    public void testAddAndRemoveNodeKeepsKeys() {
+        ByteStashManager<Object> manager = ByteStashFactory.builder().withNodes(4).withCapacity(50000L).build().create();
+        for (int i = 0; i < 2000; i++) {
+            manager.put("key-" + i, i);
+        }
+        manager.addNode().join();
+        assertEquals(5, manager.getNodeCount());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, manager.get("key-" + i, Integer.class));
+        }
+        manager.removeNode().join();
+        manager.removeNode().join();
+        assertEquals(3, manager.getNodeCount());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, manager.get("key-" + i, Integer.class));
+        }
+    }
+
+    public void testWritesDuringResizeAreKept() throws InterruptedException {
+        ByteStashManager<Object> manager = ByteStashFactory.builder().withNodes(4).withCapacity(100000L).build().create();
+        AtomicBoolean resizing = new AtomicBoolean(true);
+        AtomicInteger lastRound = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            int round = 0;
+            do {
+                round++;
+                for (int i = 0; i < 5000; i++) {
+                    manager.put("key-" + i, round);
+                }
+                lastRound.set(round);
+            } while (resizing.get());
+        });
+        writer.start();
+        manager.addNode().join();
+        manager.removeNode().join();
+        manager.removeNode().join();
+        resizing.set(false);
+        writer.join();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(lastRound.get(), manager.get("key-" + i, Integer.class));
+        }
+    }
+
+    private void assertMovement(NodeRouter router, boolean onlyToNewNode) {
+        NodeRouter grown = router.resize(router.getNodeCount() + 1);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            int hash = CacheKey.spread(i);
+            int before = router.route(hash);
+            int after = grown.route(hash);
+            if (before != after) {
+                moved++;
+                if (onlyToNewNode) {
+                    assertEquals(router.getNodeCount(), after);
+                }
+            }
+        }
+        double expected = (double) KEYS / grown.getNodeCount();
+        assertTrue("moved " + moved, moved > expected * 0.7 && moved < expected * 1.3);
+    }
+}
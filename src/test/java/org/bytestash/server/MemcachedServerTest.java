@@ -0,0 +1,96 @@
+package org.bytestash.server;
+
+import junit.framework.TestCase;
+import org.bytestash.creator.ByteStashFactory;
+import org.bytestash.creator.ByteStashManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class MemcachedServerTest extends TestCase {
+
+    private MemcachedServer server;
+
+    @Override
+    protected void setUp() throws IOException {
+        ByteStashManager<StoredValue> manager = ByteStashFactory.<StoredValue>builder().withNodes(2).withCapacity(10000L).build().create();
+        server = MemcachedServer.builder().withManager(manager).withHost("127.0.0.1").withPort(0).withThreads(2).build().start();
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        server.close();
+    }
+
+    public void testPipelinedCommands() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "set a 5 0 5\r\nhello\r\nset b 0 0 2 noreply\r\nhi\r\nget a b missing\r\ngets a\r\n"
+                                 + "delete a\r\ndelete a\r\nget a\r\nbogus\r\n");
+            String expected = "STORED\r\n"
+                                      + "VALUE a 5 5\r\nhello\r\nVALUE b 0 2\r\nhi\r\nEND\r\n"
+                                      + "VALUE a 5 5 1\r\nhello\r\nEND\r\n"
+                                      + "DELETED\r\nNOT_FOUND\r\nEND\r\nERROR\r\n";
+            assertEquals(expected, receive(socket, expected.length()));
+        }
+    }
+
+    public void testCommandsSplitAcrossWrites() throws Exception {
+        String value = "x".repeat(100_000);
+        try (Socket socket = connect()) {
+            String request = "set big 0 0 " + value.length() + "\r\n" + value + "\r\nget big\r\n";
+            for (int i = 0; i < request.length(); i += 7000) {
+                send(socket, request.substring(i, Math.min(request.length(), i + 7000)));
+                Thread.sleep(1);
+            }
+            String expected = "STORED\r\nVALUE big 0 " + value.length() + "\r\n" + value + "\r\nEND\r\n";
+            assertEquals(expected, receive(socket, expected.length()));
+        }
+        try (Socket other = connect()) {
+            send(other, "get big\r\n");
+            assertTrue(receive(other, 20).startsWith("VALUE big 0 100000"));
+        }
+    }
+
+    public void testValueTooLarge() throws IOException {
+        try (Socket socket = connect()) {
+            int length = 2 << 20;
+            send(socket, "set huge 0 0 " + length + "\r\n");
+            String expected = "SERVER_ERROR object too large for cache\r\n";
+            assertEquals(expected, receive(socket, expected.length()));
+            send(socket, "x".repeat(length) + "\r\nset a 0 0 5\r\nhello\r\nget a huge\r\n");
+            expected = "STORED\r\nVALUE a 0 5\r\nhello\r\nEND\r\n";
+            assertEquals(expected, receive(socket, expected.length()));
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String request) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String receive(Socket socket, int length) throws IOException {
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        while (response.size() < length) {
+            int read = in.read(buffer, 0, Math.min(buffer.length, length - response.size()));
+            if (read < 0) {
+                break;
+            }
+            response.write(buffer, 0, read);
+        }
+        return response.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,68 @@
+package org.bytestash.simulator;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class SimulatorTest extends TestCase {
+
+    public void testTraceFormats() throws IOException {
+        assertEquals(List.of(10L, 11L, 12L, 20L), keys(TraceFormat.ARC, "10 3 0 1\n20 1 0 2\n"));
+        assertEquals(List.of(5L, 7L), keys(TraceFormat.LIRS, "5\n*\n7\n"));
+        List<Long> lines = keys(TraceFormat.LINES, "a\nb\na\n");
+        assertEquals(lines.get(0), lines.get(2));
+        assertFalse(lines.get(0).equals(lines.get(1)));
+        List<Long> sizes = new ArrayList<>();
+        TraceReader.read(write("key,size\na,100\nb,20,1700000000\n"), TraceFormat.CSV, (key, size) -> sizes.add((long) size));
+        assertEquals(List.of(100L, 20L), sizes);
+    }
+
+    public void testReplayInParallel() throws IOException {
+        StringBuilder trace = new StringBuilder();
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 100; key++) {
+                trace.append(key).append(',').append(key % 2 == 0 ? 10 : 1).append('\n');
+            }
+        }
+        Map<String, Supplier<? extends Policy>> policies = new LinkedHashMap<>();
+        policies.put("LRU", () -> new LruPolicy(1000, false));
+        policies.put("small LRU", () -> new LruPolicy(50, false));
+        policies.put("ByteStash", () -> new CacheNodePolicy(1000, 0.2f, 0.3f, CacheNodePolicy.weighted().build()));
+        List<SimulationResult> results = Simulator.builder()
+                                                 .withTrace(write(trace.toString()))
+                                                 .withFormat(TraceFormat.CSV)
+                                                 .withPolicies(policies)
+                                                 .build()
+                                                 .run();
+        assertEquals(3, results.size());
+        assertEquals("LRU", results.get(0).getName());
+        assertEquals(1000, results.get(0).getEvents());
+        assertEquals(0.9, results.get(0).hitRatio(), 1e-9);
+        assertEquals(0.9, results.get(0).byteHitRatio(), 1e-9);
+        assertEquals(0.0, results.get(1).hitRatio(), 1e-9);
+        assertEquals(0.9, results.get(2).hitRatio(), 1e-9);
+        String report = Simulator.report(results);
+        assertTrue(report.contains("small LRU"));
+        assertTrue(report.contains("90.00%"));
+    }
+
+    private static List<Long> keys(TraceFormat format, String content) throws IOException {
+        List<Long> keys = new ArrayList<>();
+        TraceReader.read(write(content), format, (key, size) -> keys.add(key));
+        return keys;
+    }
+
+    private static Path write(String content) throws IOException {
+        Path trace = Files.createTempFile("trace", ".txt");
+        trace.toFile().deleteOnExit();
+        Files.writeString(trace, content);
+        return trace;
+    }
+}
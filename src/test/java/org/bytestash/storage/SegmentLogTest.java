@@ -0,0 +1,80 @@
+package org.bytestash.storage;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SegmentLogTest extends TestCase {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    public void testCompactionKeepsLiveRecords() throws IOException {
+        Path file = Files.createTempFile("segment", ".log");
+        try (SegmentLog<String> log = new SegmentLog<>(file, SEGMENT_SIZE * 4L, SEGMENT_SIZE)) {
+            byte[] value = new byte[100];
+            for (int i = 0; i < 100; i++) {
+                value[0] = (byte) i;
+                assertTrue(log.put("key-" + i, value, Long.MAX_VALUE));
+            }
+            for (int i = 0; i < 100; i++) {
+                if (i % 10 != 0) {
+                    assertTrue(log.remove("key-" + i));
+                }
+            }
+            assertTrue(log.needsCompaction());
+            assertTrue(log.compact(0) > 0);
+            assertFalse(log.needsCompaction());
+            assertEquals(10, log.size());
+            for (int i = 0; i < 100; i += 10) {
+                assertEquals((byte) i, log.take("key-" + i).getValue()[0]);
+            }
+            assertNull(log.get("key-0"));
+            assertFalse(log.put("huge", new byte[SEGMENT_SIZE], Long.MAX_VALUE));
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    public void testCompactionRacingWritesKeepsLatestRecords() throws Exception {
+        Path file = Files.createTempFile("segment", ".log");
+        try (SegmentLog<Integer> log = new SegmentLog<>(file, SEGMENT_SIZE * 64L, SEGMENT_SIZE)) {
+            Thread compactor = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        log.compact(0);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            compactor.start();
+            byte[] value = new byte[100];
+            for (int round = 0; round < 50; round++) {
+                for (int key = 0; key < 20; key++) {
+                    value[0] = (byte) round;
+                    assertTrue(log.put(key, value, Long.MAX_VALUE));
+                }
+            }
+            compactor.interrupt();
+            compactor.join();
+            assertEquals(0, log.getDroppedRecords());
+            for (int key = 0; key < 20; key++) {
+                assertEquals(49, log.get(key).getValue()[0]);
+            }
+        }
+    }
+
+    public void testOldestSegmentIsDroppedWhenFull() throws IOException {
+        Path file = Files.createTempFile("segment", ".log");
+        try (SegmentLog<Integer> log = new SegmentLog<>(file, SEGMENT_SIZE * 3L, SEGMENT_SIZE)) {
+            for (int i = 0; i < 200; i++) {
+                log.put(i, new byte[100], Long.MAX_VALUE);
+            }
+            assertTrue(log.getDroppedRecords() > 0);
+            assertEquals(200 - log.getDroppedRecords(), log.size());
+            assertNull(log.get(0));
+            assertNotNull(log.get(199));
+        }
+    }
+}
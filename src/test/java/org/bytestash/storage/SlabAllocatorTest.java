@@ -0,0 +1,54 @@
+package org.bytestash.storage;
+
+import junit.framework.TestCase;
+import org.bytestash.cache.CacheNode;
+import org.bytestash.cache.CacheNodeConfig;
+
+import java.nio.charset.StandardCharsets;
+
+public class SlabAllocatorTest extends TestCase {
+
+    public void testStoreFreeAndReuse() {
+        SlabAllocator allocator = new SlabAllocator(4 << 20, 1 << 16);
+        byte[] bytes = "hello slab".getBytes(StandardCharsets.UTF_8);
+        long chunk = allocator.store(bytes);
+        assertEquals("hello slab", StandardCharsets.UTF_8.decode(allocator.view(chunk)).toString());
+        int version = allocator.version(chunk);
+        allocator.free(chunk);
+        assertTrue(allocator.version(chunk) != version);
+        assertEquals(chunk, allocator.store(bytes));
+    }
+
+    public void testRebalanceMovesEmptyPagesBetweenClasses() {
+        SlabAllocator allocator = new SlabAllocator(1 << 17, 1 << 16);
+        long[] small = new long[2000];
+        int stored = 0;
+        long chunk;
+        while (stored < small.length && (chunk = allocator.store(new byte[40])) != SlabAllocator.NO_CHUNK) {
+            small[stored++] = chunk;
+        }
+        assertEquals(SlabAllocator.NO_CHUNK, allocator.store(new byte[4000]));
+        for (int i = 0; i < stored; i++) {
+            allocator.free(small[i]);
+        }
+        assertTrue(allocator.store(new byte[4000]) != SlabAllocator.NO_CHUNK);
+        assertTrue(allocator.getFragmentation() > 0d);
+    }
+
+    public void testCacheNodeKeepsValuesOffHeap() {
+        CacheNodeConfig<String> config = CacheNodeConfig.<String>builder()
+                                                 .withValueSerializer(new StringSerializer())
+                                                 .withOffHeapCapacity(1 << 20)
+                                                 .build();
+        CacheNode<String> cacheNode = new CacheNode<>(100, 0f, 0f, 240, 0, config);
+        for (int i = 0; i < 500; i++) {
+            cacheNode.put("key-" + i, "value-" + i);
+        }
+        assertEquals("value-499", cacheNode.get("key-499"));
+        cacheNode.put("key-499", "updated");
+        assertEquals("updated", cacheNode.get("key-499"));
+        assertEquals("updated", cacheNode.remove("key-499"));
+        assertNull(cacheNode.get("key-0"));
+        cacheNode.checkCacheAndRegion();
+    }
+}
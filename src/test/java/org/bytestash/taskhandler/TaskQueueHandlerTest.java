@@ -0,0 +1,73 @@
+package org.bytestash.taskhandler;
+
+import junit.framework.TestCase;
+import org.bytestash.cache.CacheNode;
+import org.bytestash.cache.CacheRegionType;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskQueueHandlerTest extends TestCase {
+
+    private final CacheNode<String> cacheNode = new CacheNode<>(100, 0);
+
+    public void testPendingTaskIsCoalesced() {
+        TaskQueueHandler handler = new TaskQueueHandler(10);
+        NodeWork work = new NodeWork(cacheNode, CacheRegionType.COLD, 0);
+        assertTrue(handler.addTask(work));
+        assertFalse(handler.addTask(work));
+        assertEquals(1, handler.size());
+        assertSame(work, handler.removeTask());
+        assertFalse(handler.addTask(work));
+        handler.complete(work);
+        assertTrue(handler.addTask(work));
+        assertEquals(2, handler.getEnqueuedCount());
+        assertEquals(2, handler.getCoalescedCount());
+    }
+
+    public void testFullQueueDropsTasks() {
+        TaskQueueHandler handler = new TaskQueueHandler(2);
+        for (int i = 0; i < 3; i++) {
+            handler.addTask(new NodeWork(cacheNode, CacheRegionType.HOT, i));
+        }
+        assertEquals(2, handler.size());
+        assertEquals(1, handler.getDroppedCount());
+        assertEquals(0, handler.removeTask().getPos());
+        assertEquals(1, handler.removeTask().getPos());
+        assertNull(handler.removeTask());
+    }
+
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        int perProducer = 10000;
+        TaskQueueHandler handler = new TaskQueueHandler(64, OverflowPolicy.BLOCK);
+        Set<NodeWork> taken = ConcurrentHashMap.newKeySet();
+        AtomicInteger remaining = new AtomicInteger(4 * perProducer);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    handler.addTask(new NodeWork(cacheNode, CacheRegionType.WARM, producer * perProducer + i));
+                }
+                done.countDown();
+            }).start();
+        }
+        for (int c = 0; c < 4; c++) {
+            new Thread(() -> {
+                while (remaining.get() > 0) {
+                    NodeWork work = handler.removeTask();
+                    if (work != null) {
+                        assertTrue(taken.add(work));
+                        remaining.decrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        assertEquals(4 * perProducer, taken.size());
+        assertEquals(0, handler.getDroppedCount());
+    }
+}